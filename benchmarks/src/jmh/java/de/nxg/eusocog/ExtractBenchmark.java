@@ -0,0 +1,49 @@
+package de.nxg.eusocog;
+
+import java.io.*;
+import java.util.concurrent.*;
+
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Extract stage: turning a page into the Javadoc and finding the Javadoc again inside an
+ * allready generated class (done when a problem statement changed).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ExtractBenchmark {
+
+    @Param({ "small", "large", "missing" })
+    public String fixture;
+
+    private int problemNo;
+    private String page;
+    private String generatedClass;
+
+    @Setup
+    public void setUp() throws IOException {
+        problemNo = Fixtures.getProblemNo(fixture);
+        page = Fixtures.load(fixture);
+        generatedClass = Fixtures.render(fixture);
+    }
+
+    /**
+     * The pass the generator makes when it mirrors resources: the Javadoc and the images
+     * and data files it links, including the miss on a page without a problem
+     */
+    @Benchmark
+    public Object extract() {
+        return ProblemExtractor.extract(problemNo, page);
+    }
+
+    @Benchmark
+    public String toJavaDoc() {
+        return ProblemExtractor.toJavaDoc(problemNo, page);
+    }
+
+    @Benchmark
+    public int[] findJavaDoc() {
+        return ProblemExtractor.findJavaDoc(generatedClass, problemNo);
+    }
+}
@@ -0,0 +1,84 @@
+package de.nxg.eusocog;
+
+import java.io.*;
+import java.nio.charset.*;
+import java.util.*;
+
+/**
+ * Problem pages used by the benchmarks, found in the <code>fixtures</code> resource
+ * folder. They follow the page layout of projecteuler.net, but only "small" has the
+ * statement of a real problem. "large" is synthetic. They are read the same way
+ * {@link HttpPageSource} delivers a page.
+ */
+final class Fixtures {
+
+    /** fixture name to the problem number of the page */
+    private static final Map<String, Integer> PROBLEM_NOS = new HashMap<>();
+    static {
+        PROBLEM_NOS.put("small", 1);
+        PROBLEM_NOS.put("large", 777);
+        PROBLEM_NOS.put("missing", 1);
+    }
+
+    private Fixtures() {}
+
+    /**
+     * @param name
+     *            one of "small" (the short statement of problem 1), "large" (a synthetic
+     *            long statement with hundreds of images) or "missing" (a page without a
+     *            problem)
+     */
+    static int getProblemNo(String name) {
+        Integer problemNo = PROBLEM_NOS.get(name);
+        if (problemNo == null) {
+            throw new IllegalArgumentException("Unknown fixture: " + name);
+        }
+        return problemNo;
+    }
+
+    /**
+     * @return the page, line breaks normalized to "\n"
+     */
+    static String load(String name) throws IOException {
+        getProblemNo(name);
+        String resource = "/fixtures/problem-" + name + ".html";
+        try (InputStream in = Fixtures.class.getResourceAsStream(resource)) {
+            if (in == null) {
+                throw new FileNotFoundException(resource);
+            }
+            ByteArrayOutputStream out = new ByteArrayOutputStream(1 << 16);
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+            return new String(out.toByteArray(), StandardCharsets.UTF_8).replace("\r\n", "\n");
+        }
+    }
+
+    /**
+     * @return the class the generator would write for the fixture with the default
+     *         template, a class without Javadoc for pages without a problem
+     */
+    static String render(String name) throws IOException {
+        int problemNo = getProblemNo(name);
+        String javaDoc = ProblemExtractor.toJavaDoc(problemNo, load(name));
+        return EulerSourceGenerator.DEFAULT_CLASS_TEMPLATE.render(values(problemNo, javaDoc != null ? javaDoc : ""));
+    }
+
+    /**
+     * @return the placeholder values the generator uses for a problem
+     */
+    static Map<SourceTemplate.Placeholder, String> values(int problemNo, String javaDoc) {
+        Map<SourceTemplate.Placeholder, String> values = new EnumMap<>(SourceTemplate.Placeholder.class);
+        String packageName = String.format("de.nxg.eulersolutions.x%03d_%03d",
+                problemNo / 50 * 50, problemNo / 50 * 50 + 49);
+        values.put(SourceTemplate.Placeholder.PACKAGE, packageName);
+        values.put(SourceTemplate.Placeholder.PACKAGE_DECLARATION, "package " + packageName + ";");
+        values.put(SourceTemplate.Placeholder.JAVADOC, javaDoc);
+        values.put(SourceTemplate.Placeholder.CLASS_NAME, String.format("Euler%03d", problemNo));
+        values.put(SourceTemplate.Placeholder.CONFIG_PACKAGE, "de.nxg.eulersolutions");
+        values.put(SourceTemplate.Placeholder.PROBLEM_NO, Integer.toString(problemNo));
+        return values;
+    }
+}
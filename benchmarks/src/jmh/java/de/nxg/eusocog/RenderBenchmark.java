@@ -0,0 +1,48 @@
+package de.nxg.eusocog;
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Render stage: filling the default class template, once into a fresh String and once
+ * into a reused buffer like the generator does.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class RenderBenchmark {
+
+    @Param({ "small", "large" })
+    public String fixture;
+
+    private Map<SourceTemplate.Placeholder, String> values;
+    private String templateText;
+    private final StringBuilder buffer = new StringBuilder(4096);
+
+    @Setup
+    public void setUp() throws IOException {
+        int problemNo = Fixtures.getProblemNo(fixture);
+        values = Fixtures.values(problemNo, ProblemExtractor.toJavaDoc(problemNo, Fixtures.load(fixture)));
+        templateText = EulerSourceGenerator.DEFAULT_CLASS_TEMPLATE.toString();
+    }
+
+    @Benchmark
+    public String render() {
+        return EulerSourceGenerator.DEFAULT_CLASS_TEMPLATE.render(values);
+    }
+
+    @Benchmark
+    public String renderReusedBuffer() {
+        buffer.setLength(0);
+        EulerSourceGenerator.DEFAULT_CLASS_TEMPLATE.render(values, buffer);
+        return buffer.toString();
+    }
+
+    @Benchmark
+    public SourceTemplate compile() {
+        return SourceTemplate.compile(templateText);
+    }
+}
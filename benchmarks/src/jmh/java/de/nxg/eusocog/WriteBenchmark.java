@@ -0,0 +1,90 @@
+package de.nxg.eusocog;
+
+import java.io.*;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Write stage: writing a generated class into a temporary folder. A new
+ * {@link SourceWriter} is used per iteration, just like one is used per generator run.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class WriteBenchmark {
+
+    @Param({ "small", "large" })
+    public String fixture;
+
+    private Path folder;
+    private String content;
+    private String changedContent;
+    private SourceWriter writer;
+    private Path unchangedFile;
+    private Path updatedFile;
+    private int created;
+    private boolean changed;
+
+    @Setup
+    public void setUp() throws IOException {
+        folder = Files.createTempDirectory("eusocog-bench");
+        content = Fixtures.render(fixture);
+        changedContent = content + "\n";
+        unchangedFile = folder.resolve("Unchanged.java");
+        updatedFile = folder.resolve("Updated.java");
+    }
+
+    @Setup(Level.Iteration)
+    public void setUpIteration() throws IOException {
+        clear(folder.resolve("created"));
+        writer = new SourceWriter();
+        writer.write(unchangedFile, content);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        clear(folder);
+    }
+
+    /** A problem that wasn't generated before */
+    @Benchmark
+    public SourceWriter.Outcome writeCreated() throws IOException {
+        return writer.write(folder.resolve("created").resolve("Euler" + created++ + ".java"), content);
+    }
+
+    /** A problem whose class is allready exactly like that, nothing gets written */
+    @Benchmark
+    public SourceWriter.Outcome writeUnchanged() throws IOException {
+        return writer.write(unchangedFile, content);
+    }
+
+    /** A problem whose statement changed, the class gets replaced */
+    @Benchmark
+    public SourceWriter.Outcome writeUpdated() throws IOException {
+        changed = !changed;
+        return writer.write(updatedFile, changed ? changedContent : content);
+    }
+
+    private static void clear(Path path) throws IOException {
+        if (!Files.exists(path)) {
+            return;
+        }
+        List<Path> paths = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(path)) {
+            for (Path child : stream) {
+                paths.add(child);
+            }
+        }
+        for (Path child : paths) {
+            if (Files.isDirectory(child)) {
+                clear(child);
+            } else {
+                Files.delete(child);
+            }
+        }
+        Files.delete(path);
+    }
+}
@@ -0,0 +1,290 @@
+package de.nxg.eusocog;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.nio.charset.*;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.zip.*;
+
+/**
+ * A {@link PageSource} that reads the webpages of the problems from a local archive
+ * instead of downloading them. Supported archives are
+ * <ul>
+ * <li>a directory containing one html file per problem</li>
+ * <li>a zip file containing one html file per problem</li>
+ * <li>a bundle file written by {@link #writeBundle(PageSource, Collection, Path)}, it is
+ * read through a memory mapped {@link FileChannel}</li>
+ * </ul>
+ * The problemNo of a html file is the first number in its file name (e.g.
+ * "problem=1.html", "001.html", "p001.htm"). Images and data files are read from a
+ * directory or zip file by their path on the website (e.g. "project/images/p015.png"), a
+ * bundle contains none. Missing files are never downloaded, they stay linked on the
+ * website.
+ */
+public final class ArchivePageSource implements PageSource, Closeable {
+
+    private static final byte[] BUNDLE_MAGIC = "EUSOCOG1".getBytes(StandardCharsets.US_ASCII);
+    /** problemNo (int), offset (long), length (int) */
+    private static final int BUNDLE_INDEX_ENTRY_SIZE = 4 + 8 + 4;
+
+    private final NavigableMap<Integer, PageReader> pages;
+    /** null if the archive contains no images and data files */
+    private final ResourceReader resources;
+    private final Closeable closeable;
+
+    private ArchivePageSource(NavigableMap<Integer, PageReader> pages, ResourceReader resources,
+            Closeable closeable) {
+        this.pages = pages;
+        this.resources = resources;
+        this.closeable = closeable;
+    }
+
+    /**
+     * Opens a directory, zip file or bundle file
+     *
+     * @throws IOException
+     *             if the archive can't be read
+     */
+    public static ArchivePageSource open(Path archive) throws IOException {
+        if (Files.isDirectory(archive)) {
+            return openDirectory(archive);
+        }
+        String fileName = archive.getFileName().toString().toLowerCase();
+        if (fileName.endsWith(".zip")) {
+            return openZip(archive);
+        }
+        return openBundle(archive);
+    }
+
+    /**
+     * @return the problemNos of all problems in the archive in ascending order
+     */
+    public NavigableSet<Integer> getProblemNos() {
+        return Collections.unmodifiableNavigableSet(pages.navigableKeySet());
+    }
+
+    @Override
+    public ProblemPage getPage(int problemNo) throws IOException {
+        PageReader reader = pages.get(problemNo);
+        if (reader == null) {
+            return new ProblemPage(problemNo, "", ProblemPage.Origin.UNAVAILABLE);
+        }
+        // same line breaks as the HttpPageSource, otherwise the page hashes in the manifest differ
+        return new ProblemPage(problemNo, reader.read().replace("\r\n", "\n"), ProblemPage.Origin.CACHE);
+    }
+
+    /**
+     * Reads the file from the archive on the executor, fails if the archive doesn't
+     * contain it.
+     */
+    @Override
+    public CompletableFuture<byte[]> getResourceAsync(String path, Executor executor) {
+        if (resources == null) {
+            return CompletableFuture.failedFuture(new FileNotFoundException("The bundle contains no " + path));
+        }
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return resources.read(stripQuery(path));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }, executor);
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closeable != null) {
+            closeable.close();
+        }
+    }
+
+    /**
+     * Packs the webpages of the problems into a single bundle file, problems that the
+     * source doesn't have are left out.
+     *
+     * @param source
+     *            e.g. an {@link ArchivePageSource} or a {@link CachingPageSource} in
+     *            {@link CachingPageSource.Mode#OFFLINE} mode
+     * @param problemNos
+     *            the problems to be packed
+     * @param bundle
+     *            the bundle file to be written
+     */
+    public static void writeBundle(PageSource source, Collection<Integer> problemNos, Path bundle)
+            throws IOException {
+        Map<Integer, byte[]> contents = new TreeMap<>();
+        for (int problemNo : problemNos) {
+            ProblemPage page = source.getPage(problemNo);
+            if (page.origin != ProblemPage.Origin.UNAVAILABLE) {
+                contents.put(problemNo, page.content.getBytes(StandardCharsets.UTF_8));
+            }
+        }
+
+        long offset = BUNDLE_MAGIC.length + 4 + (long) contents.size() * BUNDLE_INDEX_ENTRY_SIZE;
+        ByteBuffer header = ByteBuffer.allocate((int) offset);
+        header.put(BUNDLE_MAGIC).putInt(contents.size());
+        for (Map.Entry<Integer, byte[]> entry : contents.entrySet()) {
+            header.putInt(entry.getKey()).putLong(offset).putInt(entry.getValue().length);
+            offset += entry.getValue().length;
+        }
+        header.flip();
+
+        try (FileChannel channel = FileChannel.open(bundle, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (header.hasRemaining()) {
+                channel.write(header);
+            }
+            for (byte[] content : contents.values()) {
+                ByteBuffer buffer = ByteBuffer.wrap(content);
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+            }
+        }
+    }
+
+    private static ArchivePageSource openDirectory(Path directory) throws IOException {
+        NavigableMap<Integer, PageReader> pages = new TreeMap<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*.{html,htm}")) {
+            for (Path file : stream) {
+                int problemNo = getProblemNo(file.getFileName().toString());
+                if (problemNo != -1) {
+                    pages.put(problemNo, () -> new String(Files.readAllBytes(file), StandardCharsets.UTF_8));
+                }
+            }
+        }
+        Path root = directory.toAbsolutePath().normalize();
+        return new ArchivePageSource(pages, path -> {
+            Path file = root.resolve(path).normalize();
+            if (!file.startsWith(root) || !Files.isRegularFile(file)) {
+                throw new FileNotFoundException("The archive contains no " + path);
+            }
+            return Files.readAllBytes(file);
+        }, null);
+    }
+
+    private static ArchivePageSource openZip(Path zip) throws IOException {
+        ZipFile zipFile = new ZipFile(zip.toFile(), StandardCharsets.UTF_8);
+        NavigableMap<Integer, PageReader> pages = new TreeMap<>();
+        Enumeration<? extends ZipEntry> entries = zipFile.entries();
+        while (entries.hasMoreElements()) {
+            ZipEntry entry = entries.nextElement();
+            String name = entry.getName().substring(entry.getName().lastIndexOf('/') + 1).toLowerCase();
+            if (entry.isDirectory() || !(name.endsWith(".html") || name.endsWith(".htm"))) {
+                continue;
+            }
+            int problemNo = getProblemNo(name);
+            if (problemNo != -1) {
+                pages.put(problemNo, () -> {
+                    try (InputStream in = zipFile.getInputStream(entry)) {
+                        return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+                    }
+                });
+            }
+        }
+        return new ArchivePageSource(pages, path -> {
+            ZipEntry entry = zipFile.getEntry(path);
+            if (entry == null || entry.isDirectory()) {
+                throw new FileNotFoundException("The archive contains no " + path);
+            }
+            try (InputStream in = zipFile.getInputStream(entry)) {
+                return in.readAllBytes();
+            }
+        }, zipFile);
+    }
+
+    private static ArchivePageSource openBundle(Path bundle) throws IOException {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(bundle, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Bundle files larger than 2 GB are not supported: " + bundle);
+            }
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+
+        byte[] magic = new byte[BUNDLE_MAGIC.length];
+        if (buffer.remaining() < magic.length + 4) {
+            throw new IOException("Not a bundle file: " + bundle);
+        }
+        buffer.get(magic);
+        if (!Arrays.equals(magic, BUNDLE_MAGIC)) {
+            throw new IOException("Not a bundle file: " + bundle);
+        }
+        int count = buffer.getInt();
+        if (count < 0 || (long) count * BUNDLE_INDEX_ENTRY_SIZE > buffer.remaining()) {
+            throw new IOException("Corrupt bundle file, index of " + count + " entries doesn't fit: " + bundle);
+        }
+        NavigableMap<Integer, PageReader> pages = new TreeMap<>();
+        for (int i = 0; i < count; i++) {
+            int problemNo = buffer.getInt();
+            long offset = buffer.getLong();
+            int length = buffer.getInt();
+            if (offset < 0 || length < 0 || offset + length > buffer.capacity()) {
+                throw new IOException("Corrupt bundle file, problem " + problemNo + " at " + offset + " with "
+                        + length + " bytes is outside of the " + buffer.capacity() + " bytes: " + bundle);
+            }
+            ByteBuffer content = buffer.duplicate();
+            content.position((int) offset).limit((int) offset + length);
+            ByteBuffer slice = content.slice();
+            pages.put(problemNo, () -> StandardCharsets.UTF_8.decode(slice.duplicate()).toString());
+        }
+        return new ArchivePageSource(pages, null, null);
+    }
+
+    /**
+     * @return the path without query, e.g. "project/images/p015.png" for
+     *         "project/images/p015.png?1678992052"
+     */
+    private static String stripQuery(String path) {
+        for (int i = 0; i < path.length(); i++) {
+            char c = path.charAt(i);
+            if (c == '?' || c == '#') {
+                return path.substring(0, i);
+            }
+        }
+        return path;
+    }
+
+    /**
+     * @return the first number in the file name or -1 if it contains none
+     */
+    private static int getProblemNo(String fileName) {
+        int start = 0;
+        while (start < fileName.length() && !Character.isDigit(fileName.charAt(start))) {
+            start++;
+        }
+        int end = start;
+        while (end < fileName.length() && Character.isDigit(fileName.charAt(end))) {
+            end++;
+        }
+        if (start == end) {
+            return -1;
+        }
+        try {
+            return Integer.parseInt(fileName.substring(start, end));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    // #########################################################################
+    // ############################ INNER CLASSES ##############################
+    // #########################################################################
+
+    @FunctionalInterface
+    private interface PageReader {
+
+        String read() throws IOException;
+
+    }
+
+    @FunctionalInterface
+    private interface ResourceReader {
+
+        byte[] read(String path) throws IOException;
+
+    }
+}
@@ -0,0 +1,270 @@
+package de.nxg.eusocog;
+
+import java.io.*;
+import java.nio.charset.*;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * A {@link PageSource} that keeps the downloaded webpages in a local folder.
+ * <p>
+ * The content of every webpage is saved content-addressed under
+ * <code>&ltcacheFolder>/objects/&ltsha-256></code>, the ETag and Last-Modified headers
+ * are saved next to it in <code>&ltcacheFolder>/pages/&ltsha-256 of the url>.properties</code>
+ * and used for conditional requests, that way unchanged webpages are answered with
+ * "304 Not Modified" and read from disk. Webpages without a problem (e.g. for a problem
+ * that doesn't exist yet) aren't cached, they are requested again every time.
+ */
+public final class CachingPageSource implements PageSource {
+
+    /** How the cache should be used */
+    public enum Mode {
+        /** send a conditional request for every webpage (default) */
+        REVALIDATE,
+        /** use cached webpages without contacting the server, only download missing ones */
+        PREFER_CACHE,
+        /** never contact the server, webpages that are not cached are unavailable */
+        OFFLINE
+    }
+
+    private static final String KEY_URL = "url";
+    private static final String KEY_CONTENT = "content";
+    private static final String KEY_ETAG = "etag";
+    private static final String KEY_LAST_MODIFIED = "lastModified";
+
+    private final Path pagesFolder;
+    private final Path objectsFolder;
+    private final HttpPageSource delegate;
+    private final Mode mode;
+
+    /**
+     * Creates a new CachingPageSource for <a href="https://projecteuler.net">projecteuler.net</a>
+     * that revalidates every cached webpage
+     *
+     * @param cacheFolder
+     *            the folder the webpages are cached in
+     */
+    public CachingPageSource(Path cacheFolder) {
+        this(cacheFolder, new HttpPageSource(), Mode.REVALIDATE);
+    }
+
+    /**
+     * Creates a new CachingPageSource
+     *
+     * @param cacheFolder
+     *            the folder the webpages are cached in
+     * @param delegate
+     *            the {@link HttpPageSource} used to download the webpages
+     * @param mode
+     *            how the cache should be used
+     */
+    public CachingPageSource(Path cacheFolder, HttpPageSource delegate, Mode mode) {
+        if (cacheFolder == null) {
+            throw new NullPointerException("cacheFolder mustn't be null");
+        }
+        if (delegate == null) {
+            throw new NullPointerException("delegate mustn't be null");
+        }
+        if (mode == null) {
+            throw new NullPointerException("mode mustn't be null");
+        }
+        this.pagesFolder = cacheFolder.resolve("pages");
+        this.objectsFolder = cacheFolder.resolve("objects");
+        this.delegate = delegate;
+        this.mode = mode;
+    }
+
+    @Override
+    public ProblemPage getPage(int problemNo) throws IOException {
+        return Futures.join(getPageAsync(problemNo, Runnable::run));
+    }
+
+    /**
+     * Reads the cache on the executor, requests to the server are sent asynchronously.
+     * Cancelling the returned future cancels the request.
+     */
+    @Override
+    public CompletableFuture<ProblemPage> getPageAsync(int problemNo, Executor executor) {
+        String url = delegate.getUrl(problemNo);
+        Path entryPath = pagesFolder.resolve(Hashes.sha256(url) + ".properties");
+        CompletableFuture<ProblemPage> page = new CompletableFuture<>();
+        CompletableFuture.supplyAsync(() -> readCachedPage(entryPath), executor)
+                .thenCompose(cached -> {
+                    // cached by an older version, a problem that didn't exist yet might exist now
+                    boolean stale = cached != null && mode == Mode.PREFER_CACHE
+                            && !ProblemPage.containsProblem(cached.content);
+                    if (cached != null && mode != Mode.REVALIDATE && !stale) {
+                        return CompletableFuture.completedFuture(
+                                new ProblemPage(problemNo, cached.content, ProblemPage.Origin.CACHE));
+                    }
+                    if (mode == Mode.OFFLINE) {
+                        return CompletableFuture.completedFuture(
+                                new ProblemPage(problemNo, "", ProblemPage.Origin.UNAVAILABLE));
+                    }
+
+                    CompletableFuture<HttpPageSource.Response> request;
+                    if (cached == null) {
+                        request = delegate.getAsync(problemNo, null, null);
+                    } else {
+                        request = delegate.getAsync(problemNo, cached.etag, cached.lastModified);
+                    }
+                    Futures.cancelUpstream(request, page);
+                    return request.handleAsync(
+                            (response, error) -> toPage(problemNo, url, entryPath, cached, response, error),
+                            executor);
+                })
+                .whenComplete((result, error) -> {
+                    if (error != null) {
+                        page.completeExceptionally(error);
+                    } else {
+                        page.complete(result);
+                    }
+                });
+        return page;
+    }
+
+    /**
+     * Images and data files aren't cached, they are loaded by the delegate unless the
+     * mode is {@link Mode#OFFLINE}.
+     */
+    @Override
+    public CompletableFuture<byte[]> getResourceAsync(String path, Executor executor) {
+        if (mode == Mode.OFFLINE) {
+            return CompletableFuture.failedFuture(new IOException("Offline, can't load " + path));
+        }
+        return delegate.getResourceAsync(path, executor);
+    }
+
+    /**
+     * Passed on to the delegate, pages taken from the cache aren't reported.
+     */
+    @Override
+    public void setConcurrencyLimiter(ConcurrencyLimiter limiter) {
+        delegate.setConcurrencyLimiter(limiter);
+    }
+
+    private ProblemPage toPage(int problemNo, String url, Path entryPath, CachedPage cached,
+            HttpPageSource.Response response, Throwable error) {
+        if (error != null) {
+            if (cached == null || Futures.unwrap(error) instanceof CancellationException) {
+                throw new CompletionException(Futures.unwrap(error));
+            }
+            System.out.println("Failed to revalidate problem " + problemNo + ", using the cached webpage: "
+                    + Futures.unwrap(error));
+            return new ProblemPage(problemNo, cached.content, ProblemPage.Origin.CACHE);
+        }
+
+        if (response.content == null) {
+            if (cached == null) {
+                throw new CompletionException(new IOException("Server answered an unconditional request for "
+                        + url + " with " + response.statusCode));
+            }
+            return new ProblemPage(problemNo, cached.content, ProblemPage.Origin.NOT_MODIFIED,
+                    response.transferredBytes);
+        }
+
+        if (!ProblemPage.containsProblem(response.content)) {
+            try {
+                Files.deleteIfExists(entryPath);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return new ProblemPage(problemNo, response.content, ProblemPage.Origin.NETWORK,
+                    response.transferredBytes);
+        }
+        try {
+            Properties newEntry = new Properties();
+            newEntry.setProperty(KEY_URL, url);
+            newEntry.setProperty(KEY_CONTENT, writeObject(response.content));
+            if (response.etag != null) {
+                newEntry.setProperty(KEY_ETAG, response.etag);
+            }
+            if (response.lastModified != null) {
+                newEntry.setProperty(KEY_LAST_MODIFIED, response.lastModified);
+            }
+            writeEntry(entryPath, newEntry);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return new ProblemPage(problemNo, response.content, ProblemPage.Origin.NETWORK,
+                response.transferredBytes);
+    }
+
+    /**
+     * @return the cached webpage or null if it isn't cached
+     */
+    private CachedPage readCachedPage(Path entryPath) {
+        try {
+            Properties entry = readEntry(entryPath);
+            if (entry == null) {
+                return null;
+            }
+            String content = readObject(entry.getProperty(KEY_CONTENT));
+            if (content == null) {
+                return null;
+            }
+            return new CachedPage(content, entry.getProperty(KEY_ETAG), entry.getProperty(KEY_LAST_MODIFIED));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static Properties readEntry(Path entryPath) throws IOException {
+        if (!Files.exists(entryPath)) {
+            return null;
+        }
+        Properties entry = new Properties();
+        try (Reader reader = Files.newBufferedReader(entryPath, StandardCharsets.UTF_8)) {
+            entry.load(reader);
+        }
+        return entry.getProperty(KEY_CONTENT) == null ? null : entry;
+    }
+
+    private void writeEntry(Path entryPath, Properties entry) throws IOException {
+        StringWriter writer = new StringWriter();
+        entry.store(writer, null);
+        Files.createDirectories(pagesFolder);
+        SourceWriter.writeAtomically(entryPath, writer.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private String readObject(String hash) throws IOException {
+        Path objectPath = objectsFolder.resolve(hash);
+        if (!Files.exists(objectPath)) {
+            return null;
+        }
+        return new String(Files.readAllBytes(objectPath), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @return the hash of the content
+     */
+    private String writeObject(String content) throws IOException {
+        byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+        String hash = Hashes.sha256(bytes);
+        Path objectPath = objectsFolder.resolve(hash);
+        if (!Files.exists(objectPath)) {
+            Files.createDirectories(objectsFolder);
+            SourceWriter.writeAtomically(objectPath, bytes);
+        }
+        return hash;
+    }
+
+    // #########################################################################
+    // ############################ INNER CLASSES ##############################
+    // #########################################################################
+
+    private static final class CachedPage {
+
+        private final String content;
+        private final String etag;
+        private final String lastModified;
+
+        private CachedPage(String content, String etag, String lastModified) {
+            this.content = content;
+            this.etag = etag;
+            this.lastModified = lastModified;
+        }
+
+    }
+}
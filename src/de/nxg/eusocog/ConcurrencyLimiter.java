@@ -0,0 +1,172 @@
+package de.nxg.eusocog;
+
+import java.util.*;
+
+/**
+ * Adapts how many requests may be in flight at the same time to what the server can take
+ * (additive increase, multiplicative decrease, like TCP congestion control).
+ * <p>
+ * The limit starts with slow start: it grows by one with every successful response,
+ * doubling about once per round trip. After the first congestion signal it grows by one
+ * per round trip only. Congestion signals are:
+ * <ul>
+ * <li>a "429 Too Many Requests" or "503 Service Unavailable" response or a timeout,
+ * halving the limit</li>
+ * <li>a response taking more than {@value #LATENCY_TOLERANCE} times the latency without
+ * load (the lowest latency seen), the server queues the requests. The limit shrinks by
+ * 10%. The latency is the time until the headers of the response arrive, so the size
+ * of a page (or a body-less "304 Not Modified") doesn't count as load.</li>
+ * </ul>
+ * Only requests sent after the last decrease can decrease the limit again, that way a
+ * burst of throttled responses to the same round counts once. The limit never leaves
+ * the floor and ceiling given to the constructor.
+ *
+ * @see EulerSourceGenerator#setConcurrencyLimits(int, int)
+ * @see PageSource#setConcurrencyLimiter(ConcurrencyLimiter)
+ */
+public final class ConcurrencyLimiter {
+
+    // #########################################################################
+    // ########################## STATIC FINAL FIELDS ##########################
+    // #########################################################################
+
+    static final double LATENCY_TOLERANCE = 2.0;
+    private static final double LATENCY_DECREASE = 0.9;
+    private static final double THROTTLED_DECREASE = 0.5;
+    /** how fast the latency without load follows higher latencies, e.g. a slower route */
+    private static final double BASELINE_DRIFT = 0.01;
+
+    // #########################################################################
+    // ############################# CLASS FIELDS ##############################
+    // #########################################################################
+
+    private final int minLimit;
+    private final int maxLimit;
+    private double limit;
+    private int peakLimit;
+    private boolean slowStart = true;
+    private double baselineNanos = -1;
+    private long lastDecrease = Long.MIN_VALUE;
+    private int throttled;
+    private int slowResponses;
+
+    /**
+     * @param minLimit
+     *            the politeness floor, the limit never drops below it (at least 1)
+     * @param initialLimit
+     *            the limit to start with
+     * @param maxLimit
+     *            the ceiling, the limit never grows above it
+     */
+    public ConcurrencyLimiter(int minLimit, int initialLimit, int maxLimit) {
+        if (minLimit < 1) {
+            throw new IllegalArgumentException("minLimit must be at least 1: " + minLimit);
+        }
+        if (maxLimit < minLimit) {
+            throw new IllegalArgumentException("maxLimit mustn't be less than minLimit: " + maxLimit + " < "
+                    + minLimit);
+        }
+        if (initialLimit < minLimit || initialLimit > maxLimit) {
+            throw new IllegalArgumentException("initialLimit must be between " + minLimit + " and " + maxLimit
+                    + ": " + initialLimit);
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.limit = initialLimit;
+        this.peakLimit = initialLimit;
+    }
+
+    // #########################################################################
+    // ############################## PUBLIC API ###############################
+    // #########################################################################
+
+    /**
+     * @return how many requests may be in flight right now
+     */
+    public synchronized int getLimit() {
+        return (int) limit;
+    }
+
+    /**
+     * @return the highest limit so far
+     */
+    public synchronized int getPeakLimit() {
+        return peakLimit;
+    }
+
+    /**
+     * @return the latency without load, -1 before the first response
+     */
+    synchronized long getBaselineNanos() {
+        return (long) baselineNanos;
+    }
+
+    /**
+     * Reports a response that wasn't throttled
+     *
+     * @param sentNanos
+     *            the {@link System#nanoTime()} the request was sent at
+     * @param receivedNanos
+     *            the {@link System#nanoTime()} the headers of the response arrived at,
+     *            before the body is downloaded
+     */
+    public synchronized void onSuccess(long sentNanos, long receivedNanos) {
+        long latency = receivedNanos - sentNanos;
+        if (baselineNanos < 0 || latency < baselineNanos) {
+            baselineNanos = latency;
+        } else {
+            baselineNanos += (latency - baselineNanos) * BASELINE_DRIFT;
+        }
+
+        if (latency > baselineNanos * LATENCY_TOLERANCE) {
+            if (decrease(sentNanos, receivedNanos, LATENCY_DECREASE)) {
+                slowResponses++;
+            }
+        } else {
+            limit = Math.min(maxLimit, limit + (slowStart ? 1 : 1 / limit));
+            peakLimit = Math.max(peakLimit, (int) limit);
+        }
+    }
+
+    /**
+     * Reports a "429 Too Many Requests" or "503 Service Unavailable" response or a
+     * timeout
+     *
+     * @param sentNanos
+     *            the {@link System#nanoTime()} the request was sent at
+     * @param receivedNanos
+     *            the {@link System#nanoTime()} the response or the timeout arrived at
+     */
+    public synchronized void onThrottled(long sentNanos, long receivedNanos) {
+        if (decrease(sentNanos, receivedNanos, THROTTLED_DECREASE)) {
+            throttled++;
+        }
+    }
+
+    /**
+     * @return e.g. "limit 12 (peak 24, 1 to 50), throttled 2 times, 3 slow responses"
+     */
+    @Override
+    public synchronized String toString() {
+        return String.format(Locale.ROOT, "limit %d (peak %d, %d to %d), throttled %d times, %d slow responses",
+                (int) limit, peakLimit, minLimit, maxLimit, throttled, slowResponses);
+    }
+
+    // #########################################################################
+    // ############################## PRIVATE API ##############################
+    // #########################################################################
+
+    /**
+     * @return if the limit was decreased, false if the request was sent before the last
+     *         decrease
+     */
+    private boolean decrease(long sentNanos, long now, double factor) {
+        if (lastDecrease != Long.MIN_VALUE && sentNanos - lastDecrease < 0) {
+            return false;
+        }
+        limit = Math.max(minLimit, limit * factor);
+        slowStart = false;
+        lastDecrease = now;
+        return true;
+    }
+}
@@ -0,0 +1,261 @@
+package de.nxg.eusocog;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.nio.charset.*;
+import java.nio.file.*;
+import java.util.*;
+
+/**
+ * A data file of a problem (e.g. the names or the matrix linked from the statement),
+ * mapped read-only into memory. Numbers are parsed straight from the mapped bytes, no
+ * lines or Strings are created for them.
+ * <p>
+ * The file is read as tokens: runs of ASCII letters, digits and non-ASCII bytes.
+ * Everything else (whitespace, commas, quotes, ...) separates tokens, a '-' directly
+ * before a digit belongs to the number. That way <code>"MARY","PATRICIA"</code> reads
+ * as the words MARY and PATRICIA and <code>131,673,-234</code> as three numbers.
+ * Not thread-safe, the position of the next token is shared.
+ *
+ * @see EulerProblem#dataFile(String)
+ */
+public final class DataFile {
+
+    // #########################################################################
+    // ############################# CLASS FIELDS ##############################
+    // #########################################################################
+
+    private final Path path;
+    private final ByteBuffer bytes;
+    private final int limit;
+    private int position;
+
+    private DataFile(Path path, ByteBuffer bytes) {
+        this.path = path;
+        this.bytes = bytes;
+        this.limit = bytes.limit();
+    }
+
+    // #########################################################################
+    // ############################## PUBLIC API ###############################
+    // #########################################################################
+
+    /**
+     * Maps the file read-only into memory
+     */
+    public static DataFile open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("Too big to map (" + size + " bytes): " + file);
+            }
+            // the mapping stays valid after the channel is closed
+            return new DataFile(file, channel.map(FileChannel.MapMode.READ_ONLY, 0, size));
+        }
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    /**
+     * @return the size of the file in bytes
+     */
+    public int size() {
+        return limit;
+    }
+
+    /**
+     * @return all bytes of the file, read-only and independent of the position of the
+     *         next token
+     */
+    public ByteBuffer getBytes() {
+        return bytes.asReadOnlyBuffer();
+    }
+
+    /**
+     * @return the offset of the next token (or separator before it) in the file
+     */
+    public int position() {
+        return position;
+    }
+
+    /**
+     * Starts reading from the beginning of the file again
+     */
+    public void rewind() {
+        position = 0;
+    }
+
+    /**
+     * @return if there is another token
+     */
+    public boolean hasNext() {
+        skipSeparators(false);
+        return position < limit;
+    }
+
+    /**
+     * @throws NoSuchElementException
+     *             if there is no token left
+     * @throws NumberFormatException
+     *             if the next token isn't a number or doesn't fit into a long
+     */
+    public long nextLong() {
+        if (!hasNext()) {
+            throw new NoSuchElementException("No tokens left in " + path);
+        }
+        int start = position;
+        boolean negative = bytes.get(position) == '-';
+        if (negative) {
+            position++;
+        }
+        long value = 0;
+        while (position < limit) {
+            int digit = bytes.get(position) - '0';
+            if (digit < 0 || digit > 9) {
+                break;
+            }
+            // accumulated negative, that way Long.MIN_VALUE fits as well
+            if (value < (Long.MIN_VALUE + digit) / 10) {
+                throw new NumberFormatException("Doesn't fit into a long at byte " + start + " of " + path);
+            }
+            value = value * 10 - digit;
+            position++;
+        }
+        if (position < limit && isTokenByte(bytes.get(position))) {
+            throw new NumberFormatException("Not a number at byte " + start + " of " + path + ": " + nextWord(start));
+        }
+        if (!negative) {
+            if (value == Long.MIN_VALUE) {
+                throw new NumberFormatException("Doesn't fit into a long at byte " + start + " of " + path);
+            }
+            value = -value;
+        }
+        return value;
+    }
+
+    /**
+     * @see #nextLong()
+     */
+    public int nextInt() {
+        int start = position;
+        long value = nextLong();
+        if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+            throw new NumberFormatException("Doesn't fit into an int at byte " + start + " of " + path);
+        }
+        return (int) value;
+    }
+
+    /**
+     * @return the next token as String (UTF-8 decoded)
+     * @throws NoSuchElementException
+     *             if there is no token left
+     */
+    public String nextWord() {
+        if (!hasNext()) {
+            throw new NoSuchElementException("No tokens left in " + path);
+        }
+        return nextWord(position);
+    }
+
+    /**
+     * @return all remaining numbers
+     */
+    public long[] readLongs() {
+        LongList numbers = new LongList(Math.max(16, (limit - position) / 4));
+        while (hasNext()) {
+            numbers.add(nextLong());
+        }
+        return numbers.toArray();
+    }
+
+    /**
+     * @return the remaining numbers, one row per line. Lines without numbers are skipped,
+     *         the rows may have different lengths (e.g. for a triangle).
+     */
+    public long[][] readLongMatrix() {
+        List<long[]> rows = new ArrayList<>();
+        LongList row = new LongList();
+        while (true) {
+            skipSeparators(true);
+            if (position >= limit || bytes.get(position) == '\n') {
+                if (!row.isEmpty()) {
+                    rows.add(row.toArray());
+                    row.clear();
+                }
+                if (position >= limit) {
+                    return rows.toArray(new long[rows.size()][]);
+                }
+                position++;
+                continue;
+            }
+            row.add(nextLong());
+        }
+    }
+
+    /**
+     * @return all remaining tokens as Strings
+     */
+    public List<String> readWords() {
+        List<String> words = new ArrayList<>();
+        while (hasNext()) {
+            words.add(nextWord());
+        }
+        return words;
+    }
+
+    @Override
+    public String toString() {
+        return path + " (" + limit + " bytes)";
+    }
+
+    // #########################################################################
+    // ############################## PRIVATE API ##############################
+    // #########################################################################
+
+    /**
+     * @param stopAtLineEnd
+     *            if a '\n' should stay unskipped
+     */
+    private void skipSeparators(boolean stopAtLineEnd) {
+        while (position < limit) {
+            byte b = bytes.get(position);
+            if (isTokenByte(b) || (stopAtLineEnd && b == '\n')) {
+                return;
+            }
+            if (b == '-' && position + 1 < limit && isDigit(bytes.get(position + 1))) {
+                return;
+            }
+            position++;
+        }
+    }
+
+    /**
+     * Reads the token starting at the index, the position ends up after it
+     */
+    private String nextWord(int start) {
+        position = start;
+        if (bytes.get(position) == '-') {
+            position++;
+        }
+        while (position < limit && isTokenByte(bytes.get(position))) {
+            position++;
+        }
+        byte[] word = new byte[position - start];
+        for (int i = 0; i < word.length; i++) {
+            word[i] = bytes.get(start + i);
+        }
+        return new String(word, StandardCharsets.UTF_8);
+    }
+
+    private static boolean isTokenByte(byte b) {
+        // non-ASCII bytes are negative, they belong to UTF-8 encoded characters
+        return b < 0 || isDigit(b) || (b >= 'a' && b <= 'z') || (b >= 'A' && b <= 'Z');
+    }
+
+    private static boolean isDigit(byte b) {
+        return b >= '0' && b <= '9';
+    }
+}
@@ -0,0 +1,528 @@
+package de.nxg.eusocog;
+
+import java.io.*;
+import java.lang.reflect.*;
+import java.net.*;
+import java.nio.charset.*;
+import java.nio.file.*;
+import java.time.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+import java.util.jar.*;
+
+/**
+ * Solves all {@link EulerProblem} subclasses of a package (and its subpackages)
+ * concurrently and reports the results and timings.
+ * <p>
+ * The problems are taken from the {@link ProblemRegistry} generated into the package if
+ * there is one, otherwise the classpath is scanned for them.
+ * <p>
+ * Every problem is solved on its own daemon thread with a time budget. A problem that
+ * throws is reported as failed, a problem that doesn't finish within its budget gets
+ * interrupted and abandoned, either way the others keep running. At most
+ * {@link #setThreadCount(int) threadCount} problems are solved at the same time.
+ *
+ * <pre>
+ * java de.nxg.eusocog.EulerBatchRunner your.package.here [report.csv|report.json]
+ * </pre>
+ */
+public class EulerBatchRunner {
+
+    // #########################################################################
+    // ########################## STATIC FINAL FIELDS ##########################
+    // #########################################################################
+
+    private static final String CLASS_SUFFIX = ".class";
+    /** How long a cancelled problem gets to return before its thread is left behind */
+    private static final Duration GRACE_PERIOD = Duration.ofSeconds(1);
+
+    // #########################################################################
+    // ############################# CLASS FIELDS ##############################
+    // #########################################################################
+
+    private final IEulerConfig config;
+    private int threadCount = Runtime.getRuntime().availableProcessors();
+    private Duration timeBudget;
+
+    /**
+     * Creates a new EulerBatchRunner
+     *
+     * @param config
+     *            the config handed to every problem
+     */
+    public EulerBatchRunner(IEulerConfig config) {
+        if (config == null) {
+            throw new NullPointerException("config mustn't be null");
+        }
+        this.config = config;
+        Duration configBudget = config.getTimeBudget();
+        this.timeBudget = configBudget != null && !configBudget.isNegative() && !configBudget.isZero()
+                ? configBudget : Duration.ofMinutes(1);
+    }
+
+    // #########################################################################
+    // ############################## PUBLIC API ###############################
+    // #########################################################################
+
+    /**
+     * Solves all problems of the package given as first argument, writes the report into
+     * the file given as second argument (.csv or .json). The EulerConfig generated into
+     * the package is used if there is one.
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length < 1) {
+            System.out.println("Usage: EulerBatchRunner <package> [report.csv|report.json]");
+            return;
+        }
+        EulerBatchRunner runner = new EulerBatchRunner(findConfig(args[0]));
+        ProblemRegistry registry = findRegistry(args[0]);
+        List<SolveResult> results = registry != null ? runner.run(registry) : runner.run(findProblems(args[0]));
+        if (args.length > 1) {
+            writeReport(results, Paths.get(args[1]));
+        }
+    }
+
+    /**
+     * @param threadCount
+     *            how many problems are solved at the same time, defaults to the number
+     *            of processors
+     */
+    public void setThreadCount(int threadCount) {
+        if (threadCount < 1) {
+            throw new IllegalArgumentException("threadCount must be at least 1: " + threadCount);
+        }
+        this.threadCount = threadCount;
+    }
+
+    public int getThreadCount() {
+        return threadCount;
+    }
+
+    /**
+     * @param timeBudget
+     *            how long a single problem may take, defaults to
+     *            {@link IEulerConfig#getTimeBudget()} or one minute if the config has none
+     */
+    public void setTimeBudget(Duration timeBudget) {
+        if (timeBudget == null) {
+            throw new NullPointerException("timeBudget mustn't be null");
+        }
+        if (timeBudget.isNegative() || timeBudget.isZero()) {
+            throw new IllegalArgumentException("timeBudget must be positive: " + timeBudget);
+        }
+        this.timeBudget = timeBudget;
+    }
+
+    public Duration getTimeBudget() {
+        return timeBudget;
+    }
+
+    /**
+     * Finds all concrete {@link EulerProblem} subclasses in the package and its
+     * subpackages, in directories as well as in jar files on the classpath.
+     *
+     * @return the classes sorted by name
+     */
+    public static List<Class<? extends EulerProblem>> findProblems(String packageName) throws IOException {
+        ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+        if (classLoader == null) {
+            classLoader = EulerBatchRunner.class.getClassLoader();
+        }
+        String packagePath = packageName.replace('.', '/');
+
+        SortedSet<String> classNames = new TreeSet<>();
+        Enumeration<URL> resources = classLoader.getResources(packagePath);
+        while (resources.hasMoreElements()) {
+            URL url = resources.nextElement();
+            if ("file".equals(url.getProtocol())) {
+                findClassNames(url, packageName, classNames);
+            } else if ("jar".equals(url.getProtocol())) {
+                findClassNames((JarURLConnection) url.openConnection(), packagePath, classNames);
+            }
+        }
+
+        List<Class<? extends EulerProblem>> problems = new ArrayList<>();
+        for (String className : classNames) {
+            try {
+                Class<?> c = Class.forName(className, false, classLoader);
+                if (EulerProblem.class.isAssignableFrom(c) && !Modifier.isAbstract(c.getModifiers())) {
+                    problems.add(c.asSubclass(EulerProblem.class));
+                }
+            } catch (ClassNotFoundException | LinkageError e) {
+                System.out.println("Couldn't load " + className + ": " + e);
+            }
+        }
+        return problems;
+    }
+
+    /**
+     * Solves all problems and prints a summary
+     *
+     * @return the results in the order of the given problems
+     */
+    public List<SolveResult> run(List<Class<? extends EulerProblem>> problems) throws InterruptedException {
+        Map<Class<? extends EulerProblem>, Callable<SolveResult>> tasks = new LinkedHashMap<>();
+        for (Class<? extends EulerProblem> problem : problems) {
+            tasks.put(problem, () -> EulerProblem.run(problem, config, timeBudget));
+        }
+        return run(tasks);
+    }
+
+    /**
+     * Solves all problems of the registry, creating them with their constructor
+     * references instead of reflection, and prints a summary
+     *
+     * @return the results ordered by problem number
+     */
+    public List<SolveResult> run(ProblemRegistry registry) throws InterruptedException {
+        Map<Class<? extends EulerProblem>, Callable<SolveResult>> tasks = new LinkedHashMap<>();
+        for (ProblemRegistry.Entry entry : registry.getProblems().values()) {
+            tasks.put(entry.problemClass, () -> EulerProblem.run(entry.problemClass, entry.constructor, config,
+                    timeBudget));
+        }
+        return run(tasks);
+    }
+
+    /**
+     * @return the EulerProblems registry generated into the package, null if there is none
+     */
+    public static ProblemRegistry findRegistry(String packageName) {
+        try {
+            Class<?> c = Class.forName(packageName + ".EulerProblems");
+            if (ProblemRegistry.class.isAssignableFrom(c)) {
+                return (ProblemRegistry) c.getMethod("getInstance").invoke(null);
+            }
+        } catch (ClassNotFoundException e) {
+            // not generated (yet)
+        } catch (ReflectiveOperationException | RuntimeException | LinkageError e) {
+            System.out.println("Couldn't use " + packageName + ".EulerProblems: " + e);
+        }
+        return null;
+    }
+
+    /**
+     * Writes the results as CSV or, if the file name ends with ".json", as JSON
+     */
+    public static void writeReport(List<SolveResult> results, Path reportFile) throws IOException {
+        String report = reportFile.getFileName().toString().endsWith(".json") ? toJson(results) : toCsv(results);
+        Path folder = reportFile.toAbsolutePath().getParent();
+        Files.createDirectories(folder);
+        SourceWriter.writeAtomically(reportFile.toAbsolutePath(), report.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @return one line per result: problem, status, result, wallMillis, cpuMillis,
+     *         allocatedBytes, gcCount, gcMillis, error, progress (-1 for what wasn't
+     *         measured)
+     */
+    public static String toCsv(List<SolveResult> results) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("problem,status,result,wallMillis,cpuMillis,allocatedBytes,gcCount,gcMillis,error,progress\n");
+        for (SolveResult result : results) {
+            sb.append(result.problemClass.getName())
+                    .append(',').append(result.status)
+                    .append(',').append(escapeCsv(result.result))
+                    .append(',').append(toMillis(result.wallNanos))
+                    .append(',').append(result.cpuNanos < 0 ? "-1" : toMillis(result.cpuNanos))
+                    .append(',').append(result.allocatedBytes)
+                    .append(',').append(result.gcCount)
+                    .append(',').append(result.gcMillis)
+                    .append(',').append(escapeCsv(result.error != null ? result.error.toString() : null))
+                    .append(',').append(escapeCsv(result.progress))
+                    .append('\n');
+        }
+        return sb.toString();
+    }
+
+    /**
+     * @return a JSON array with one object per result
+     */
+    public static String toJson(List<SolveResult> results) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("[\n");
+        for (int i = 0; i < results.size(); i++) {
+            sb.append("  ").append(toJson(results.get(i))).append(i == results.size() - 1 ? "\n" : ",\n");
+        }
+        sb.append("]\n");
+        return sb.toString();
+    }
+
+    /**
+     * @return the result as JSON object on one line
+     */
+    public static String toJson(SolveResult result) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("{\"problem\": ").append(escapeJson(result.problemClass.getName()))
+                .append(", \"status\": \"").append(result.status).append('"')
+                .append(", \"result\": ").append(escapeJson(result.result))
+                .append(", \"wallMillis\": ").append(toMillis(result.wallNanos))
+                .append(", \"cpuMillis\": ").append(result.cpuNanos < 0 ? "-1" : toMillis(result.cpuNanos))
+                .append(", \"allocatedBytes\": ").append(result.allocatedBytes)
+                .append(", \"gcCount\": ").append(result.gcCount)
+                .append(", \"gcMillis\": ").append(result.gcMillis)
+                .append(", \"error\": ").append(escapeJson(result.error != null ? result.error.toString() : null))
+                .append(", \"progress\": ").append(escapeJson(result.progress))
+                .append(", \"memos\": [");
+        for (int j = 0; j < result.memoStatistics.size(); j++) {
+            MemoStatistics memo = result.memoStatistics.get(j);
+            sb.append(j == 0 ? "" : ", ")
+                    .append("{\"name\": ").append(escapeJson(memo.name))
+                    .append(", \"hits\": ").append(memo.hits)
+                    .append(", \"misses\": ").append(memo.misses)
+                    .append(", \"evictions\": ").append(memo.evictions)
+                    .append(", \"memoryBytes\": ").append(memo.memoryBytes).append('}');
+        }
+        return sb.append("]}").toString();
+    }
+
+    // #########################################################################
+    // ############################## PRIVATE API ##############################
+    // #########################################################################
+
+    private List<SolveResult> run(Map<Class<? extends EulerProblem>, Callable<SolveResult>> tasks)
+            throws InterruptedException {
+        System.out.println("Solving " + tasks.size() + " problems on " + threadCount + " threads...");
+        long start = System.nanoTime();
+
+        AtomicInteger threadNo = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(threadCount, r -> {
+            Thread t = new Thread(r, "eusocog-batch-" + threadNo.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        List<Future<SolveResult>> futures = new ArrayList<>();
+        try {
+            for (Map.Entry<Class<? extends EulerProblem>, Callable<SolveResult>> task : tasks.entrySet()) {
+                futures.add(pool.submit(() -> runIsolated(task.getKey(), task.getValue())));
+            }
+            SolveHistory history = openHistory();
+            int flagged = 0;
+            int notSolved = 0;
+            List<SolveResult> results = new ArrayList<>();
+            for (Future<SolveResult> future : futures) {
+                try {
+                    SolveResult result = future.get();
+                    System.out.println(result);
+                    results.add(result);
+                    SolveHistory.Comparison comparison = history != null ? recordHistory(history, result) : null;
+                    if (comparison != null && comparison.isStatusChanged()) {
+                        notSolved++;
+                    } else if (comparison != null && (comparison.resultChanged || comparison.slower)) {
+                        flagged++;
+                    }
+                } catch (ExecutionException e) {
+                    // runIsolated doesn't throw
+                    throw new IllegalStateException(e.getCause());
+                }
+            }
+            printSummary(results, System.nanoTime() - start);
+            if (history != null) {
+                System.out.println(flagged + " problems changed their result or got slower, " + notSolved
+                        + " solved before aren't solved any more");
+            }
+            return results;
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Solves the problem on a new daemon thread. The problem gets cancelled when it
+     * exceeds the time budget (see {@link EulerProblem#checkCancelled()}), a problem that
+     * doesn't return within the grace period after that is left behind, it can't block
+     * the other problems.
+     */
+    private SolveResult runIsolated(Class<? extends EulerProblem> problem, Callable<SolveResult> solve)
+            throws InterruptedException {
+        FutureTask<SolveResult> task = new FutureTask<>(solve);
+        Thread thread = new Thread(task, "eusocog-" + problem.getSimpleName());
+        thread.setDaemon(true);
+        long start = System.nanoTime();
+        thread.start();
+        try {
+            return task.get(timeBudget.plus(GRACE_PERIOD).toNanos(), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            task.cancel(true);
+            return new SolveResult(problem, SolveResult.Status.TIMED_OUT, null, System.nanoTime() - start, null);
+        } catch (ExecutionException e) {
+            // EulerProblem.run returns failures instead of throwing them
+            return new SolveResult(problem, SolveResult.Status.FAILED, null, System.nanoTime() - start, e.getCause());
+        }
+    }
+
+    private SolveHistory openHistory() {
+        Path historyFile = config.getHistoryFile();
+        if (historyFile == null) {
+            return null;
+        }
+        try {
+            return SolveHistory.open(historyFile);
+        } catch (IOException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    /**
+     * @return the comparison with the history, null if it couldn't be recorded
+     */
+    private SolveHistory.Comparison recordHistory(SolveHistory history, SolveResult result) {
+        try {
+            SolveHistory.Comparison comparison = history.record(result, SolveHistory.Mode.BATCH,
+                    config.getSlowdownThreshold());
+            for (String warning : comparison.getWarnings(result.wallNanos)) {
+                System.out.println(result.problemClass.getSimpleName() + ": " + warning);
+            }
+            return comparison;
+        } catch (IOException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    private static void printSummary(List<SolveResult> results, long wallNanos) {
+        EnumMap<SolveResult.Status, Integer> counts = new EnumMap<>(SolveResult.Status.class);
+        long solveNanos = 0;
+        for (SolveResult result : results) {
+            counts.merge(result.status, 1, Integer::sum);
+            solveNanos += result.wallNanos;
+        }
+        System.out.println("Solved " + counts.getOrDefault(SolveResult.Status.SOLVED, 0) + " of " + results.size()
+                + " problems in " + wallNanos / 1_000_000 + " ms (" + solveNanos / 1_000_000 + " ms solving), "
+                + counts.getOrDefault(SolveResult.Status.NO_RESULT, 0) + " without result, "
+                + counts.getOrDefault(SolveResult.Status.FAILED, 0) + " failed, "
+                + counts.getOrDefault(SolveResult.Status.TIMED_OUT, 0) + " timed out");
+    }
+
+    /**
+     * @return the EulerConfig generated into the package or one of its parent packages, a
+     *         default config if there is none
+     */
+    private static IEulerConfig findConfig(String packageName) {
+        for (String name = packageName; !name.isEmpty(); name = name.contains(".")
+                ? name.substring(0, name.lastIndexOf('.')) : "") {
+            try {
+                Class<?> c = Class.forName(name + ".EulerConfig");
+                if (IEulerConfig.class.isAssignableFrom(c)) {
+                    return (IEulerConfig) c.getMethod("getInstance").invoke(null);
+                }
+            } catch (ClassNotFoundException e) {
+                // try the parent package
+            } catch (ReflectiveOperationException | RuntimeException e) {
+                System.out.println("Couldn't use " + name + ".EulerConfig: " + e);
+                break;
+            }
+        }
+        return new DefaultConfig();
+    }
+
+    private static void findClassNames(URL url, String packageName, Set<String> classNames) throws IOException {
+        Path root;
+        try {
+            root = Paths.get(url.toURI());
+        } catch (URISyntaxException e) {
+            throw new IOException(e);
+        }
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(root)) {
+            for (Path child : stream) {
+                String fileName = child.getFileName().toString();
+                if (Files.isDirectory(child)) {
+                    findClassNames(child.toUri().toURL(), packageName + "." + fileName, classNames);
+                } else if (isTopLevelClass(fileName)) {
+                    classNames.add(packageName + "." + fileName.substring(0, fileName.length() - CLASS_SUFFIX.length()));
+                }
+            }
+        }
+    }
+
+    private static void findClassNames(JarURLConnection connection, String packagePath, Set<String> classNames)
+            throws IOException {
+        connection.setUseCaches(false);
+        try (JarFile jarFile = connection.getJarFile()) {
+            Enumeration<JarEntry> entries = jarFile.entries();
+            while (entries.hasMoreElements()) {
+                String name = entries.nextElement().getName();
+                if (name.startsWith(packagePath + "/") && isTopLevelClass(name.substring(name.lastIndexOf('/') + 1))) {
+                    classNames.add(name.substring(0, name.length() - CLASS_SUFFIX.length()).replace('/', '.'));
+                }
+            }
+        }
+    }
+
+    private static boolean isTopLevelClass(String fileName) {
+        return fileName.endsWith(CLASS_SUFFIX) && fileName.indexOf('$') == -1
+                && !fileName.equals("package-info.class") && !fileName.equals("module-info.class");
+    }
+
+    private static String escapeCsv(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') == -1 && value.indexOf('"') == -1 && value.indexOf('\n') == -1
+                && value.indexOf('\r') == -1) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    private static String escapeJson(String value) {
+        if (value == null) {
+            return "null";
+        }
+        StringBuilder sb = new StringBuilder(value.length() + 2);
+        sb.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+            case '"':
+                sb.append("\\\"");
+                break;
+            case '\\':
+                sb.append("\\\\");
+                break;
+            case '\n':
+                sb.append("\\n");
+                break;
+            case '\r':
+                sb.append("\\r");
+                break;
+            case '\t':
+                sb.append("\\t");
+                break;
+            default:
+                if (c < 0x20) {
+                    sb.append(String.format("\\u%04x", (int) c));
+                } else {
+                    sb.append(c);
+                }
+            }
+        }
+        return sb.append('"').toString();
+    }
+
+    private static String toMillis(long nanos) {
+        return String.format(Locale.ROOT, "%.3f", nanos / 1_000_000.0);
+    }
+
+    // #########################################################################
+    // ############################ INNER CLASSES ##############################
+    // #########################################################################
+
+    /**
+     * Used if the package contains no EulerConfig
+     */
+    private static class DefaultConfig implements IEulerConfig {
+
+        @Override
+        public boolean shouldCopyToClipboard() {
+            return false;
+        }
+
+        @Override
+        public TimeUnit getFinishTimeUnit() {
+            return TimeUnit.MILLISECONDS;
+        }
+    }
+
+}
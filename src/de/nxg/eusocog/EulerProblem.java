@@ -1,10 +1,28 @@
 package de.nxg.eusocog;
 
-import java.awt.Toolkit;
-import java.awt.datatransfer.Clipboard;
-import java.awt.datatransfer.StringSelection;
-import java.util.Arrays;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.lang.reflect.InvocationTargetException;
+import java.nio.channels.ClosedByInterruptException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.TimeUnit;
+import java.util.function.BinaryOperator;
+import java.util.function.LongBinaryOperator;
+import java.util.function.LongPredicate;
+import java.util.function.LongUnaryOperator;
+import java.util.function.Supplier;
 
 /**
  * Base Class that all Problems should extend from.
@@ -12,9 +30,27 @@ import java.util.concurrent.TimeUnit;
  */
 public abstract class EulerProblem {
 
+    private static final VarHandle PROGRESS;
+    private static final VarHandle PROGRESS_STATE;
+    static {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            PROGRESS = lookup.findVarHandle(EulerProblem.class, "progress", long.class);
+            PROGRESS_STATE = lookup.findVarHandle(EulerProblem.class, "progressState", Object.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
     private IEulerConfig config;
     private long startTime;
     private long lastTimedPrint;
+    /* written by the solving thread without any fence, read by the ProgressSampler */
+    private long progress = -1;
+    private Object progressState;
+    private final List<LongMemo> memos = new ArrayList<>();
+    private volatile long progressTotal = -1;
+    private volatile boolean cancelled;
 
     /**
      * No-Arg-Constructor
@@ -41,11 +77,19 @@ public abstract class EulerProblem {
     /**
      * When called this method will print the current time since the start of the program.
      * Usefull when profiling.<br/>
-     * <code>"&ltstring> took &lttime> since the start"</code>
+     * <code>"&ltstring> took &lttime> since the start"</code><br/>
+     * While the flight recorder is running only a checkpoint event is recorded instead
+     * (see {@link IEulerConfig#getFlightRecordingFile()}), printing on the solving thread
+     * would distort the recorded timings.
      * @param string, will be printed as the cause
      */
     public void time(String string) {
-        System.out.println(string + " took " + getTimeDisplayString() + " since the start");
+        long elapsedNanos = System.nanoTime() - startTime;
+        if (SolveEvents.isRecording()) {
+            SolveEvents.checkpoint(this, string, elapsedNanos);
+            return;
+        }
+        System.out.println(string + " took " + getTimeDisplayString(elapsedNanos, config) + " since the start");
     }
 
     /**
@@ -57,6 +101,164 @@ public abstract class EulerProblem {
         time("Something");
     }
 
+    /**
+     * Publishes the progress of the solution, e.g. the loop counter. Costs no more than
+     * a plain field write, so it can be called in the innermost loop. A background
+     * thread prints the progress every {@link IEulerConfig#getProgressIntervalMillis()}
+     * milliseconds with the rate, the ETA (if {@link #setProgressTotal(long)} was called)
+     * and the state.<br/>
+     * <code>"[&lttime> ms] &ltprogress> (&ltrate>/s, &ltpercent>%, ETA &lteta>) &ltstate>"</code>
+     * @param value the progress, should only grow
+     */
+    public final void progress(long value) {
+        PROGRESS.setOpaque(this, value);
+    }
+
+    /**
+     * Same as {@link #progress(long)}, additionally publishes an object printed with the
+     * progress (e.g. the best result so far). toString() is only called by the
+     * background thread, never while solving.
+     */
+    public final void progress(long value, Object state) {
+        PROGRESS_STATE.setOpaque(this, state);
+        PROGRESS.setOpaque(this, value);
+    }
+
+    /**
+     * @param total the value {@link #progress(long)} reaches when the solution is done,
+     *            used for the percentage and the ETA
+     */
+    public final void setProgressTotal(long total) {
+        progressTotal = total;
+    }
+
+    /**
+     * @return if the time budget ({@link IEulerConfig#getTimeBudget()}) is exceeded. A
+     *         volatile read, cheap enough for every iteration of an outer loop.
+     */
+    public final boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * Stops solving if the time budget is exceeded, call it in long running loops. The
+     * problem is reported as timed out with the last {@link #progress(long)}.
+     * @throws SolveCancelledException if the time budget is exceeded
+     */
+    public final void checkCancelled() {
+        if (cancelled) {
+            throw new SolveCancelledException(getClass().getSimpleName() + " exceeded its time budget");
+        }
+    }
+
+    /**
+     * Sums the results of the chunk function over the range from <code>from</code>
+     * (inclusive) to <code>to</code> (exclusive), solving the chunks in parallel with
+     * {@link IEulerConfig#getParallelism()} threads.
+     * @see ParallelRange
+     */
+    public final long parallelSum(long from, long to, ParallelRange.LongChunk chunk) {
+        return ParallelRange.sum(getPool(), from, to, chunk);
+    }
+
+    /**
+     * Counts the numbers of the range that pass the test in parallel.
+     * @see #parallelSum(long, long, ParallelRange.LongChunk)
+     */
+    public final long parallelCount(long from, long to, LongPredicate test) {
+        return ParallelRange.count(getPool(), from, to, test);
+    }
+
+    /**
+     * Finds the smallest value of the function over the range in parallel.
+     * @see #parallelSum(long, long, ParallelRange.LongChunk)
+     */
+    public final long parallelMin(long from, long to, LongUnaryOperator function) {
+        return ParallelRange.min(getPool(), from, to, function);
+    }
+
+    /**
+     * Finds the biggest value of the function over the range in parallel.
+     * @see #parallelSum(long, long, ParallelRange.LongChunk)
+     */
+    public final long parallelMax(long from, long to, LongUnaryOperator function) {
+        return ParallelRange.max(getPool(), from, to, function);
+    }
+
+    /**
+     * Combines the results of the chunk function over the range in parallel.
+     * @param identity the result of an empty range
+     * @param combiner combines the results of two chunks, has to be associative
+     * @see #parallelSum(long, long, ParallelRange.LongChunk)
+     */
+    public final long parallelReduce(long from, long to, ParallelRange.LongChunk chunk,
+            long identity, LongBinaryOperator combiner) {
+        return ParallelRange.reduce(getPool(), from, to, chunk, identity, combiner);
+    }
+
+    /**
+     * Combines the results of the chunk function over the range in parallel, in order of
+     * the range.
+     * @param identity the result of an empty range
+     * @param combiner combines the results of two chunks, has to be associative
+     * @see #parallelSum(long, long, ParallelRange.LongChunk)
+     */
+    public final <R> R parallelReduce(long from, long to, ParallelRange.Chunk<R> chunk,
+            R identity, BinaryOperator<R> combiner) {
+        return ParallelRange.reduce(getPool(), from, to, chunk, identity, combiner);
+    }
+
+    /**
+     * Collects the elements found by the chunk function over the range in parallel, in
+     * order of the range.
+     * @see #parallelSum(long, long, ParallelRange.LongChunk)
+     */
+    public final <T> List<T> parallelCollect(long from, long to,
+            ParallelRange.Chunk<? extends Collection<T>> chunk) {
+        return ParallelRange.collect(getPool(), from, to, chunk);
+    }
+
+    /**
+     * Creates a memo cache whose hits, misses and evictions are reported with the result.
+     * @param name shown in the report
+     * @param capacity the number of entries the memo can hold
+     * @see LongMemo
+     */
+    public final LongMemo memo(String name, int capacity) {
+        LongMemo memo = new LongMemo(name, capacity);
+        memos.add(memo);
+        return memo;
+    }
+
+    /**
+     * Maps a data file linked from the problem statement into memory, its numbers and
+     * words can then be parsed without copying it into lines first.
+     * @param name the name of the file as linked in the statement (e.g. "names.txt"),
+     *            its file name (e.g. "0022_names.txt") or its path on the website
+     * @throws UncheckedIOException if the file wasn't mirrored by the
+     *             {@link EulerSourceGenerator} into {@link IEulerConfig#getResourceFolder()}
+     *             or can't be read
+     * @see DataFile
+     */
+    public final DataFile dataFile(String name) {
+        Path resourceFolder = config != null ? config.getResourceFolder() : null;
+        try {
+            if (resourceFolder == null) {
+                throw new FileNotFoundException("No resource folder configured to find " + name
+                        + " in, see IEulerConfig.getResourceFolder()");
+            }
+            return DataFile.open(ResourceMirror.find(resourceFolder, name));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Prints the object if the last print is longer ago than the given milliseconds.
+     * @deprecated reads the clock on every call and builds the String on the solving
+     *             thread, use {@link #progress(long, Object)} in loops instead
+     */
+    @Deprecated
     public void timedPrint(Object obj, long milliseconds) {
         long now = System.nanoTime();
         if (now - lastTimedPrint > milliseconds * 1_000_000) {
@@ -65,45 +267,308 @@ public abstract class EulerProblem {
         }
     }
 
-    private String getTimeDisplayString() {
-        long time = config.getFinishTimeUnit().convert(System.nanoTime() - startTime, TimeUnit.NANOSECONDS);
-        return  time + " "+ config.getFinishTimeUnit().name().toLowerCase();
+    private ForkJoinPool getPool() {
+        return ParallelRange.getPool(config != null ? config.getParallelism()
+                : Runtime.getRuntime().availableProcessors());
+    }
+
+    void cancel() {
+        cancelled = true;
+    }
+
+    long getProgress() {
+        return (long) PROGRESS.getOpaque(this);
+    }
+
+    Object getProgressState() {
+        return PROGRESS_STATE.getOpaque(this);
+    }
+
+    long getProgressTotal() {
+        return progressTotal;
+    }
+
+    long getStartTime() {
+        return startTime;
+    }
+
+    private static String getTimeDisplayString(long nanos, IEulerConfig config) {
+        return getTimeDisplayString(nanos, config.getFinishTimeUnit());
     }
 
+    static String getTimeDisplayString(long nanos, TimeUnit unit) {
+        long time = unit.convert(nanos, TimeUnit.NANOSECONDS);
+        return  time + " "+ unit.name().toLowerCase();
+    }
+
+    /**
+     * Solves the problem once and prints the result, or benchmarks it if
+     * {@link IEulerConfig#isBenchmark()} is set.
+     */
     public static void start(Class<? extends EulerProblem> classToStart,
             IEulerConfig config) {
+        _start(classToStart, reflectiveConstructor(classToStart), config);
+    }
+
+    /**
+     * Same as {@link #start(Class, IEulerConfig)}, creates the problem with the
+     * constructor reference instead of reflection.
+     * @param constructor e.g. <code>Euler001::new</code>
+     */
+    public static void start(Class<? extends EulerProblem> classToStart,
+            Supplier<? extends EulerProblem> constructor, IEulerConfig config) {
+        _start(classToStart, constructor::get, config);
+    }
+
+    private static void _start(Class<? extends EulerProblem> classToStart,
+            Callable<? extends EulerProblem> constructor, IEulerConfig config) {
+        Path recordingFile = config.getFlightRecordingFile();
+        Object recording = recordingFile == null ? null : SolveEvents.startRecording(
+                "EuSoCoG " + classToStart.getSimpleName(), recordingFile, config.getProgressIntervalMillis());
+        try {
+            if (config.isBenchmark()) {
+                benchmark(classToStart, constructor, config);
+            } else {
+                solveOnce(classToStart, constructor, config);
+            }
+        } finally {
+            if (recording != null) {
+                SolveEvents.stopRecording(recording);
+            }
+        }
+    }
+
+    private static void solveOnce(Class<? extends EulerProblem> classToStart,
+            Callable<? extends EulerProblem> constructor, IEulerConfig config) {
+        System.out.println("Solving " + classToStart.getSimpleName() + "...");
+        SolveResult result = _run(classToStart, constructor, config, config.getTimeBudget());
+        String usage = result.getUsageDisplayString(config.getFinishTimeUnit());
+        if (result.status == SolveResult.Status.FAILED) {
+            result.error.printStackTrace();
+        } else if (result.status == SolveResult.Status.TIMED_OUT) {
+            System.out.println("Time budget of " + getTimeDisplayString(config.getTimeBudget().toNanos(), config)
+                    + " exceeded after " + getTimeDisplayString(result.wallNanos, config)
+                    + (usage.isEmpty() ? "" : " (" + usage + ")"));
+        } else {
+            System.out.println("Finished in " + getTimeDisplayString(result.wallNanos, config)
+                    + (usage.isEmpty() ? "" : " (" + usage + ")")
+                    + (result.overBudget ? ", over the time budget of "
+                            + getTimeDisplayString(config.getTimeBudget().toNanos(), config) : ""));
+        }
+        printMemoStatistics(result);
+        // failed runs as well, a crash is the regression the history should show most
+        ResultSinks.publish(config.getResultSinks(), result, SolveHistory.Mode.RUN);
+    }
+
+    /**
+     * Solves the problem once on a fresh instance without printing anything.
+     * Exceptions thrown while creating or solving the problem are returned as
+     * {@link SolveResult.Status#FAILED}, exceeding {@link IEulerConfig#getTimeBudget()}
+     * as {@link SolveResult.Status#TIMED_OUT}.
+     */
+    public static SolveResult run(Class<? extends EulerProblem> classToRun,
+            IEulerConfig config) {
+        return run(classToRun, config, config.getTimeBudget());
+    }
+
+    /**
+     * Same as {@link #run(Class, IEulerConfig)} with another time budget than the one of
+     * the config.
+     * @param timeBudget null to never stop the problem
+     */
+    public static SolveResult run(Class<? extends EulerProblem> classToRun,
+            IEulerConfig config, Duration timeBudget) {
+        return _run(classToRun, reflectiveConstructor(classToRun), config, timeBudget);
+    }
+
+    /**
+     * Same as {@link #run(Class, IEulerConfig)}, creates the problem with the constructor
+     * reference instead of reflection.
+     * @param constructor e.g. <code>Euler001::new</code>
+     */
+    public static SolveResult run(Class<? extends EulerProblem> classToRun,
+            Supplier<? extends EulerProblem> constructor, IEulerConfig config) {
+        return run(classToRun, constructor, config, config.getTimeBudget());
+    }
+
+    /**
+     * Same as {@link #run(Class, Supplier, IEulerConfig)} with another time budget than
+     * the one of the config.
+     * @param timeBudget null to never stop the problem
+     */
+    public static SolveResult run(Class<? extends EulerProblem> classToRun,
+            Supplier<? extends EulerProblem> constructor, IEulerConfig config, Duration timeBudget) {
+        return _run(classToRun, constructor::get, config, timeBudget);
+    }
+
+    private static SolveResult _run(Class<? extends EulerProblem> classToRun,
+            Callable<? extends EulerProblem> constructor, IEulerConfig config, Duration timeBudget) {
+        EulerProblem problem;
         try {
-            EulerProblem problem = classToStart.newInstance();
+            problem = constructor.call();
+            if (problem == null) {
+                throw new NullPointerException("The constructor of " + classToRun.getName() + " returned null");
+            }
             problem.config = config;
+        } catch (InvocationTargetException e) {
+            return new SolveResult(classToRun, SolveResult.Status.FAILED, null, 0, e.getCause());
+        } catch (Exception | Error e) {
+            return new SolveResult(classToRun, SolveResult.Status.FAILED, null, 0, e);
+        }
 
-            System.out.println("Solving " + classToStart.getSimpleName() + "...");
-            problem.startTime = System.nanoTime();
-            Object solveObject = problem.solve();
+        Object event = SolveEvents.isRecording() ? SolveEvents.beginSolve(problem) : null;
+        ResourceMeter meter = new ResourceMeter(config);
+        meter.start();
+        problem.startTime = System.nanoTime();
+        Future<?> sampler = ProgressSampler.start(problem, config.getProgressIntervalMillis());
+        Watchdog watchdog = Watchdog.start(problem, timeBudget);
+        SolveResult.Status status;
+        Object solveObject = null;
+        Throwable error = null;
+        try {
+            solveObject = problem.solve();
+            status = solveObject == null ? SolveResult.Status.NO_RESULT : SolveResult.Status.SOLVED;
+        } catch (RuntimeException | Error e) {
+            status = SolveResult.Status.FAILED;
+            error = e;
+        }
+        long wallNanos = System.nanoTime() - problem.startTime;
+        meter.stop();
+        if (sampler != null) {
+            sampler.cancel(false);
+        }
+        boolean overBudget = watchdog != null && watchdog.stop();
+        if (overBudget && error != null && isCancellation(error)) {
+            // a result returned after the budget is kept, it is just marked over budget
+            status = SolveResult.Status.TIMED_OUT;
+            error = null;
+        }
+        if (event != null) {
+            SolveEvents.endSolve(event, problem, status);
+        }
+        // formatted after measuring, a huge result doesn't add to the measured time
+        String solve = solveObject != null ? objectToString(solveObject) : null;
+        String solveHash = solveObject != null ? ResultFormatter.sha256(solveObject) : null;
+        List<MemoStatistics> memoStatistics = new ArrayList<>();
+        for (LongMemo memo : problem.memos) {
+            memoStatistics.add(memo.getStatistics());
+        }
+        return new SolveResult(classToRun, status, solve, solveHash, wallNanos, error,
+                meter.getCpuNanos(), meter.getAllocatedBytes(), meter.getGcCount(), meter.getGcMillis(),
+                memoStatistics, ProgressSampler.describe(problem), overBudget);
+    }
 
-            System.out.println("Finished in " + problem.getTimeDisplayString());
+    /**
+     * @return if solve() stopped because of the watchdog: through
+     *         {@link #checkCancelled()} or the interrupt
+     */
+    private static boolean isCancellation(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SolveCancelledException || cause instanceof InterruptedException
+                    || cause instanceof InterruptedIOException || cause instanceof ClosedByInterruptException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Calls {@link #solve()} on a fresh instance for every warmup and measured iteration,
+     * so every iteration starts from the state a single run would start from. Prints the
+     * statistics of the measured iterations and checks that every iteration returned the
+     * same result.
+     */
+    private static void benchmark(Class<? extends EulerProblem> classToStart,
+            Callable<? extends EulerProblem> constructor, IEulerConfig config) {
+        int warmupIterations = config.getWarmupIterations();
+        int measurementIterations = config.getMeasurementIterations();
+        if (warmupIterations < 0 || measurementIterations < 1) {
+            throw new IllegalArgumentException("Need at least 0 warmup and 1 measured iterations: "
+                    + warmupIterations + ", " + measurementIterations);
+        }
+        TimeUnit unit = config.getFinishTimeUnit();
 
-            if (solveObject == null) {
-                System.out.println("The Result is null! Please return a valid String.");
+        System.out.println("Benchmarking " + classToStart.getSimpleName() + " ("
+                + warmupIterations + " warmup, " + measurementIterations + " measured iterations)...");
+        long[] nanos = new long[measurementIterations];
+        double cpuNanos = 0;
+        double allocatedBytes = 0;
+        long gcCount = 0;
+        long gcMillis = 0;
+        String firstSolve = null;
+        String firstSolveHash = null;
+        SolveResult lastResult = null;
+        boolean consistent = true;
+        for (int i = 0; i < warmupIterations + measurementIterations; i++) {
+            SolveResult result = _run(classToStart, constructor, config, config.getTimeBudget());
+            if (result.status == SolveResult.Status.FAILED) {
+                result.error.printStackTrace();
+                ResultSinks.publish(config.getResultSinks(), result, SolveHistory.Mode.BENCHMARK);
                 return;
             }
+            if (result.status == SolveResult.Status.TIMED_OUT) {
+                System.out.println("Time budget exceeded after "
+                        + SolveStatistics.format(result.wallNanos, unit) + ", aborting the benchmark");
+                ResultSinks.publish(config.getResultSinks(), result, SolveHistory.Mode.BENCHMARK);
+                return;
+            }
+
+            boolean warmup = i < warmupIterations;
+            String iteration = warmup ? "Warmup " + (i + 1) : "Iteration " + (i - warmupIterations + 1);
+            System.out.println(iteration + ": " + SolveStatistics.format(result.wallNanos, unit));
+            if (!warmup) {
+                nanos[i - warmupIterations] = result.wallNanos;
+                cpuNanos += result.cpuNanos;
+                allocatedBytes += result.allocatedBytes;
+                gcCount += result.gcCount;
+                gcMillis += result.gcMillis;
+            }
 
-            String solve = null;
-            solve = objectToString(solveObject);
-            System.out.println("Result: " + solve);
-            if (config.shouldCopyToClipboard()) {
-                Clipboard systemClipboard = Toolkit.getDefaultToolkit().getSystemClipboard();
-                systemClipboard.setContents(new StringSelection(solve), null);
+            lastResult = result;
+            if (i == 0) {
+                firstSolve = result.result;
+                firstSolveHash = result.resultHash;
+            } else if (!Objects.equals(firstSolveHash, result.resultHash)) {
+                consistent = false;
+                System.out.println(iteration + " returned a different Result: " + result.result);
             }
-        } catch (InstantiationException | IllegalAccessException e) {
-            e.printStackTrace();
         }
+
+        SolveStatistics statistics = new SolveStatistics(nanos);
+        System.out.println("Finished: " + statistics.toString(unit));
+        // a value that wasn't measured is -1 in every iteration, so it stays negative
+        String usage = SolveResult.getUsageDisplayString(unit, cpuNanos / measurementIterations,
+                allocatedBytes / measurementIterations, -1, -1);
+        if (!usage.isEmpty()) {
+            System.out.println("Mean per iteration: " + usage);
+        }
+        if (gcCount >= 0) {
+            System.out.println("Garbage collections: " + gcCount + " taking " + gcMillis + " ms");
+        }
+        printMemoStatistics(lastResult);
+        if (!consistent) {
+            System.out.println("The Result differs between iterations! First Result: " + firstSolve);
+        }
+        SolveResult benchmarkResult = new SolveResult(classToStart,
+                consistent ? lastResult.status : SolveResult.Status.FAILED, consistent ? firstSolve : null,
+                consistent ? firstSolveHash : null, Math.round(statistics.getMedianNanos()), null,
+                cpuNanos < 0 ? -1 : Math.round(cpuNanos / measurementIterations),
+                allocatedBytes < 0 ? -1 : Math.round(allocatedBytes / measurementIterations), gcCount, gcMillis,
+                lastResult.memoStatistics, null, false);
+        ResultSinks.publish(config.getResultSinks(), benchmarkResult, SolveHistory.Mode.BENCHMARK);
     }
 
-    private static String objectToString(Object obj) {
-        if (obj instanceof Object[]) {
-            return Arrays.deepToString((Object[]) obj);
-        } else {
-            return obj.toString();
+    private static Callable<EulerProblem> reflectiveConstructor(Class<? extends EulerProblem> problemClass) {
+        return () -> problemClass.getDeclaredConstructor().newInstance();
+    }
+
+    private static void printMemoStatistics(SolveResult result) {
+        for (MemoStatistics memoStatistics : result.memoStatistics) {
+            System.out.println(memoStatistics);
         }
     }
+
+    static String objectToString(Object obj) {
+        return ResultFormatter.format(obj);
+    }
 }
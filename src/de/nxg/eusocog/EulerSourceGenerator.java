@@ -1,7 +1,7 @@
 package de.nxg.eusocog;
 
 import java.io.*;
-import java.net.*;
+import java.nio.charset.*;
 import java.nio.file.*;
 import java.util.*;
 import java.util.concurrent.*;
@@ -20,37 +20,19 @@ public final class EulerSourceGenerator {
     // ########################## STATIC FINAL FIELDS ##########################
     // #########################################################################
 
-    private static final String HEADING_FORMAT = "<a href=\"https://projecteuler.net/problem=%1$d\"><b>Problem %1$d</b></a></br>";
-
-    /**
-     * Need to use https because the webpage sends a "moved temporarily" response when
-     * using http only
-     */
-    private static final String URL_PREFIX = "https://projecteuler.net/problem=";
-
-    /* Search strings to identify website with a valid Problem on it */
-    private static final String SEARCH_BEGIN = "<div class=\"problem_content\" role=\"problem\">";
-    private static final String DIV_REGEX = "(?<begin><div[^<>]*>)|(?<end></div[^<>]*>)";
-
-    /*
-     * Replace internal website links with absolute links, that way all the images get
-     * correctly presented inside the IDE
-     */
-    private static final String IMAGE_REGEX = "<img src=(?<qm>\\\"|')?project\\/images\\/(?<file>[^\\\">]+)(?:\\\\k<qm>)?[^>]+>";
-    private static final String IMAGE_REGEX_REPLACEMENT = "<img src=https://projecteuler.net/project/images/${file}>";
-
     private static final String PACKAGE_FORMAT = "%1$s%2$03d_%3$03d";
 
     private static final String CLASS_NAME_FORMAT = "%1$s%2$03d";
 
-    private static final String CLASS_FORMAT = ""
-            + "%1$s\n"
+    /** The default template for the classes of the problems */
+    public static final SourceTemplate DEFAULT_CLASS_TEMPLATE = SourceTemplate.compile(""
+            + "${packageDeclaration}\n"
             + "\n"
             + "import de.nxg.eusocog.*;\n"
-            + "import %4$s.EulerConfig;\n"
+            + "import ${configPackage}.EulerConfig;\n"
             + "\n"
-            + "%2$s\n"
-            + "public class %3$s extends EulerProblem {\n"
+            + "${javadoc}\n"
+            + "public class ${className} extends EulerProblem {\n"
             + "\n"
             + "    @Override\n"
             + "    public Object solve() {\n"
@@ -58,14 +40,16 @@ public final class EulerSourceGenerator {
             + "    }\n"
             + "\n"
             + "    public static void main(String[] args) {\n"
-            + "        start(%3$s.class, EulerConfig.getInstance());\n"
+            + "        start(${className}.class, ${className}::new, EulerConfig.getInstance());\n"
             + "    }\n"
             + "\n"
-            + "}\n";
+            + "}\n");
 
-    private static final String CONFIG_CLASS_FORMAT = ""
-            + "%1$s\n"
+    /** The default template for the EulerConfig class */
+    public static final SourceTemplate DEFAULT_CONFIG_TEMPLATE = SourceTemplate.compile(""
+            + "${packageDeclaration}\n"
             + "\n"
+            + "import java.nio.file.*;\n"
             + "import java.util.concurrent.*;\n"
             + "import de.nxg.eusocog.*;\n"
             + "\n"
@@ -91,14 +75,55 @@ public final class EulerSourceGenerator {
             + "        return TimeUnit.MILLISECONDS;\n"
             + "    }\n"
             + "\n"
-            + "}\n";
+            + "    @Override\n"
+            + "    public boolean isBenchmark() {\n"
+            + "        // TODO Benchmark instead of solving once ? Currently false\n"
+            + "        return false;\n"
+            + "    }\n"
+            + "\n"
+            + "    @Override\n"
+            + "    public Path getResourceFolder() {\n"
+            + "        // The images and data files of the problems, see EulerProblem.dataFile(name)\n"
+            + "        return Paths.get(\"${resourceFolder}\");\n"
+            + "    }\n"
+            + "\n"
+            + "}\n");
+
+    /** the name of the generated {@link ProblemRegistry} */
+    private static final String REGISTRY_CLASS_NAME = "EulerProblems";
 
-    /** the amount of Problems to be pulled in parallel */
-    private static final int GENERATE_ALL_BATCH_SIZE = getSystemProperty("de.nxg.eusocog.generateAllBatchSize", 50);
-    /** the amount of thread that should pull problems */
+    /** reused by the render stage, one per thread */
+    private static final ThreadLocal<StringBuilder> RENDER_BUFFER = ThreadLocal.withInitial(() -> new StringBuilder(4096));
+
+    /**
+     * default ceiling of the problems pulled in parallel (max amount of requests in
+     * flight), see {@link #setConcurrencyLimits(int, int)}
+     */
+    private static final int MAX_CONCURRENCY = getSystemProperty("de.nxg.eusocog.maxConcurrency",
+            getSystemProperty("de.nxg.eusocog.generateAllBatchSize", 50));
+    /** default politeness floor of the problems pulled in parallel */
+    private static final int MIN_CONCURRENCY = getSystemProperty("de.nxg.eusocog.minConcurrency", 1);
+    /** after how many generated problems {@link #generateAll()} prints the progress */
+    private static final int PROGRESS_INTERVAL = 50;
+    /**
+     * the amount of threads for blocking work of the {@link PageSource} (e.g. reading the
+     * cache), requests to the server are sent asynchronously
+     */
     private static final int THREAD_COUNT = getSystemProperty("de.nxg.eusocog.threadCount", 4);
     /** max amount of classes per subpackage */
     private static final int SUBPACKAGE_SIZE = getSystemProperty("de.nxg.eusocog.subpackageSize", 50);
+    /** after how many days {@link #generateAll()} checks an allready generated problem again */
+    private static final int RECHECK_AFTER_DAYS = getSystemProperty("de.nxg.eusocog.recheckAfterDays", 30);
+    /** the folder inside the destination folder the images and data files are mirrored into */
+    private static final String RESOURCE_FOLDER = "resources";
+
+    /** default of {@link #setVerifySources(boolean)} */
+    private static final boolean VERIFY_SOURCES = Boolean.getBoolean("de.nxg.eusocog.verifySources");
+    /** default of {@link #setMirrorResources(boolean)} */
+    private static final boolean MIRROR_RESOURCES = Boolean.parseBoolean(
+            System.getProperty("de.nxg.eusocog.mirrorResources", "true"));
+    /** file for the JSON summary of {@link GenerationMetrics}, none if not set */
+    private static final String METRICS_SUMMARY = System.getProperty("de.nxg.eusocog.metricsSummary");
 
     // #########################################################################
     // ############################# CLASS FIELDS ##############################
@@ -108,6 +133,18 @@ public final class EulerSourceGenerator {
     private String problemClassPrefix;
     private String sourcePackage;
     private String subPackagePrefix;
+    private PageSource pageSource = new HttpPageSource();
+    private SourceTemplate classTemplate = DEFAULT_CLASS_TEMPLATE;
+    private SourceTemplate configTemplate = DEFAULT_CONFIG_TEMPLATE;
+    private GenerationManifest manifest;
+    private ResourceMirror resourceMirror;
+    private final List<GenerationListener> listeners = new CopyOnWriteArrayList<>();
+    private boolean verifySources = VERIFY_SOURCES;
+    private boolean mirrorResources = MIRROR_RESOURCES;
+    private int minConcurrency = MIN_CONCURRENCY;
+    private int maxConcurrency = MAX_CONCURRENCY;
+    /** the problem classes written during the current run */
+    private final Map<Path, Integer> writtenFiles = new ConcurrentHashMap<>();
 
     /**
      * Creates a new SourceGenerator Object
@@ -176,6 +213,13 @@ public final class EulerSourceGenerator {
                 || !Character.isJavaIdentifierStart(subPackagePrefix.charAt(0))) {
             throw new IllegalArgumentException("subPackagePrefix must contain at least one valid character");
         }
+        if (sourcePackage == null) {
+            throw new NullPointerException("sourcePackage mustn't be null");
+        }
+        if (sourcePackage.trim().isEmpty()) {
+            // the problem classes in the subpackages couldn't import the EulerConfig
+            throw new IllegalArgumentException("sourcePackage mustn't be the default package");
+        }
         this.sourceDestinationFolder = sourceDestinationFolder;
         this.problemClassPrefix = problemClassPrefix;
         this.sourcePackage = sourcePackage;
@@ -184,6 +228,9 @@ public final class EulerSourceGenerator {
             this.sourceDestinationFolder = newPackagePath;
         }
         this.subPackagePrefix = subPackagePrefix;
+        if (METRICS_SUMMARY != null && !METRICS_SUMMARY.isEmpty()) {
+            addListener(new GenerationMetrics(Paths.get(METRICS_SUMMARY)));
+        }
     }
 
     // #########################################################################
@@ -203,8 +250,7 @@ public final class EulerSourceGenerator {
      *         {@link #generateAll()} method uses it.
      */
     public SourceGenResult generate(int problemNo) {
-        generateEulerConfig();
-        return _generate(problemNo, false);
+        return generate(problemNo, false);
     }
 
     /**
@@ -220,198 +266,818 @@ public final class EulerSourceGenerator {
      *         {@link #generateAll()} method uses it.
      */
     public SourceGenResult generate(int problemNo, boolean overwriteExisting) {
-        generateEulerConfig();
-        return _generate(problemNo, overwriteExisting);
+        long start = System.nanoTime();
+        fireRunStarted();
+        SourceWriter writer = new SourceWriter();
+        generateEulerConfig(writer);
+        SourceGenResult result = _generate(problemNo, overwriteExisting, writer);
+        verifyWrittenFiles();
+        generateRegistry(writer);
+        saveResourceMirror();
+        saveManifest();
+        fireRunFinished(System.nanoTime() - start);
+        return result;
+    }
+
+    /**
+     * Sets the {@link PageSource} the webpages of the problems are pulled from. Defaults
+     * to a {@link HttpPageSource} for projecteuler.net.
+     *
+     * @param pageSource
+     *            e.g. a {@link CachingPageSource} to avoid downloading unchanged webpages
+     *            again
+     */
+    public void setPageSource(PageSource pageSource) {
+        if (pageSource == null) {
+            throw new NullPointerException("pageSource mustn't be null");
+        }
+        this.pageSource = pageSource;
+    }
+
+    /**
+     * @return the {@link PageSource} the webpages of the problems are pulled from
+     */
+    public PageSource getPageSource() {
+        return pageSource;
+    }
+
+    /**
+     * Sets the template for the classes of the problems, e.g. one with benchmark or
+     * parallel solve stubs. Defaults to {@link #DEFAULT_CLASS_TEMPLATE}.
+     * <p>
+     * Keep the <code>${javadoc}</code> placeholder in front of the class, otherwise the
+     * Javadoc of allready generated classes can't be updated when a problem statement
+     * changes.
+     *
+     * @see SourceTemplate.Placeholder
+     */
+    public void setClassTemplate(SourceTemplate classTemplate) {
+        if (classTemplate == null) {
+            throw new NullPointerException("classTemplate mustn't be null");
+        }
+        this.classTemplate = classTemplate;
+    }
+
+    /**
+     * Sets the template for the EulerConfig class. Defaults to
+     * {@link #DEFAULT_CONFIG_TEMPLATE}.
+     *
+     * @see SourceTemplate.Placeholder
+     */
+    public void setConfigTemplate(SourceTemplate configTemplate) {
+        if (configTemplate == null) {
+            throw new NullPointerException("configTemplate mustn't be null");
+        }
+        this.configTemplate = configTemplate;
+    }
+
+    /**
+     * Adds a listener that gets notified about every processed problem, e.g. a
+     * {@link GenerationMetrics}
+     */
+    public void addListener(GenerationListener listener) {
+        if (listener == null) {
+            throw new NullPointerException("listener mustn't be null");
+        }
+        listeners.add(listener);
+    }
+
+    public void removeListener(GenerationListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * @param verifySources
+     *            if the classes written by a run should be compiled (together with the
+     *            EulerConfig) at the end of the run, to report problems whose class
+     *            doesn't compile. Needs a JDK. Defaults to the system property
+     *            {@code de.nxg.eusocog.verifySources} or false.
+     */
+    public void setVerifySources(boolean verifySources) {
+        this.verifySources = verifySources;
+    }
+
+    public boolean isVerifySources() {
+        return verifySources;
+    }
+
+    /**
+     * @param mirrorResources
+     *            if the images and data files linked from the problems should be
+     *            downloaded (through the {@link PageSource}, for
+     *            {@link #generateFromArchive(Path, boolean)} from the archive) into the
+     *            "resources" folder of the destination folder and linked from there,
+     *            instead of linking them on the website. Defaults to the system property
+     *            {@code de.nxg.eusocog.mirrorResources} or true.
+     */
+    public void setMirrorResources(boolean mirrorResources) {
+        this.mirrorResources = mirrorResources;
+    }
+
+    public boolean isMirrorResources() {
+        return mirrorResources;
+    }
+
+    /**
+     * Sets the floor and ceiling of the problems {@link #generateAll()} requests at the
+     * same time. In between a {@link ConcurrencyLimiter} adapts the amount to the response
+     * times and throttling of the server. Defaults to the system properties
+     * {@code de.nxg.eusocog.minConcurrency} (1) and {@code de.nxg.eusocog.maxConcurrency}
+     * (50).
+     *
+     * @param minConcurrency
+     *            the politeness floor, at least 1
+     * @param maxConcurrency
+     *            the ceiling, pass the same value for both to disable the adaption
+     */
+    public void setConcurrencyLimits(int minConcurrency, int maxConcurrency) {
+        if (minConcurrency < 1) {
+            throw new IllegalArgumentException("minConcurrency must be at least 1: " + minConcurrency);
+        }
+        if (maxConcurrency < minConcurrency) {
+            throw new IllegalArgumentException("maxConcurrency mustn't be less than minConcurrency: "
+                    + maxConcurrency + " < " + minConcurrency);
+        }
+        this.minConcurrency = minConcurrency;
+        this.maxConcurrency = maxConcurrency;
     }
 
     /**
      * Generates source filse for all problems found on the webpage. Uses Multithreading
-     * to speed up the Process
+     * to speed up the Process.
+     * <p>
+     * The problems are processed as a continuous pipeline: several pages are fetched at
+     * the same time (as many as the {@link ConcurrencyLimiter} allows, see
+     * {@link #setConcurrencyLimits(int, int)}) and every fetched page is handed to the extract, render and write stages as soon as it
+     * arrives. No new problems are requested after the first problem that is not
+     * accessible, pages for higher problem numbers that are still in flight get
+     * cancelled. A page that still couldn't be loaded after all retries (e.g. a timeout)
+     * doesn't end the run, the problem is reported as failed and fetched again by the
+     * next run.
+     * <p>
+     * Problems whose class exists and whose webpage was checked within the last
+     * {@code de.nxg.eusocog.recheckAfterDays} days (according to the manifest in the
+     * destination folder) are skipped without fetching them.
      */
     public void generateAll() {
-        ExecutorService executorService = Executors.newFixedThreadPool(THREAD_COUNT);
-
-        int counter = 0;
-        boolean continueGenerating = true;
-        List<SourceGenCallable> callableList = new ArrayList<>(GENERATE_ALL_BATCH_SIZE);
-
-        generateEulerConfig();
-        while (continueGenerating) {
-            callableList.clear();
-            int lastGenerated = 0;
-            int from = counter * GENERATE_ALL_BATCH_SIZE + 1;
-            int to = (counter + 1) * GENERATE_ALL_BATCH_SIZE;
-            for (int i = from; i <= to; i++) {
-                callableList.add(new SourceGenCallable(this, i));
-            }
+        ExecutorService ioService = Executors.newFixedThreadPool(THREAD_COUNT);
+        ExecutorService processService = Executors.newFixedThreadPool(
+                Runtime.getRuntime().availableProcessors());
+        BlockingQueue<CompletableFuture<FetchedPage>> fetched = new LinkedBlockingQueue<>();
+        // starts at the amount of threads, slow start finds the limit of the server quickly
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(minConcurrency,
+                Math.max(minConcurrency, Math.min(maxConcurrency, THREAD_COUNT)), maxConcurrency);
+        pageSource.setConcurrencyLimiter(limiter);
+        CompletionService<SourceGenResult> processCompletion = new ExecutorCompletionService<>(processService);
 
-            try {
-                List<Future<SourceGenResult>> invokeAll = executorService.invokeAll(callableList);
-                while (invokeAll.size() != 0) {
-                    Iterator<Future<SourceGenResult>> iterator = invokeAll.iterator();
-                    while (iterator.hasNext()) {
-                        Future<SourceGenResult> next = iterator.next();
-                        if (!next.isDone()) {
-                            continue;
-                        } else {
-                            iterator.remove();
-                            SourceGenResult nextResult = next.get();
-                            if (nextResult != null) {
-                                if (nextResult.continueGen) {
-                                    lastGenerated = Math.max(lastGenerated, nextResult.problemNo);
-                                } else {
-                                    continueGenerating = false;
-                                }
-                            }
+        NavigableMap<Integer, CompletableFuture<FetchedPage>> inFlight = new TreeMap<>();
+        int nextProblemNo = 1;
+        int stopAt = Integer.MAX_VALUE;
+        int processing = 0;
+        int generated = 0;
+        int lastGenerated = 0;
+        int upToDate = 0;
+        int failed = 0;
+
+        long start = System.nanoTime();
+        fireRunStarted();
+        SourceWriter writer = new SourceWriter();
+        generateEulerConfig(writer);
+        try {
+            while (true) {
+                while (inFlight.size() < limiter.getLimit() && nextProblemNo < stopAt) {
+                    if (isUpToDate(nextProblemNo, writer)) {
+                        fireProblemProcessed(new ProblemMetrics(nextProblemNo, ProblemMetrics.Outcome.UP_TO_DATE,
+                                null, 0, 0, 0, 0, 0));
+                        lastGenerated = nextProblemNo++;
+                        upToDate++;
+                        continue;
+                    }
+                    CompletableFuture<FetchedPage> future = fetchAsync(nextProblemNo, ioService);
+                    inFlight.put(nextProblemNo, future);
+                    future.whenComplete((page, error) -> fetched.add(future));
+                    nextProblemNo++;
+                }
+                if (inFlight.isEmpty()) {
+                    break;
+                }
+
+                CompletableFuture<FetchedPage> done = fetched.take();
+                if (!inFlight.values().remove(done)) {
+                    // allready cancelled and removed
+                    continue;
+                }
+                FetchedPage page = done.join();
+                if (page.problemNo > stopAt) {
+                    continue;
+                }
+                if (page.failed) {
+                    finish(page, ProblemMetrics.Outcome.FAILED, 0, 0, 0);
+                    failed++;
+                } else if (page.accessible) {
+                    processCompletion.submit(new ProcessCallable(this, page, false, writer));
+                    processing++;
+                } else {
+                    finish(page, ProblemMetrics.Outcome.NOT_ACCESSIBLE, 0, 0, 0);
+                    stopAt = page.problemNo;
+                    Map<Integer, CompletableFuture<FetchedPage>> obsolete = inFlight.tailMap(stopAt, false);
+                    for (CompletableFuture<FetchedPage> future : obsolete.values()) {
+                        future.cancel(true);
+                    }
+                    obsolete.clear();
+                }
+
+                Future<SourceGenResult> processed;
+                while ((processed = processCompletion.poll()) != null) {
+                    processing--;
+                    SourceGenResult result = processed.get();
+                    if (result.continueGen) {
+                        lastGenerated = Math.max(lastGenerated, result.problemNo);
+                        if (++generated % PROGRESS_INTERVAL == 0) {
+                            System.out.println("Generated " + generated + " problems");
                         }
                     }
                 }
-            } catch (InterruptedException | ExecutionException e) {
-                e.printStackTrace();
             }
 
-            System.out.println("Generated " + from + " to " + lastGenerated);
-            counter++;
+            while (processing > 0) {
+                SourceGenResult result = processCompletion.take().get();
+                processing--;
+                if (result.continueGen) {
+                    lastGenerated = Math.max(lastGenerated, result.problemNo);
+                    generated++;
+                }
+            }
+            System.out.println("Generated " + generated + " problems (1 to " + lastGenerated + "), "
+                    + upToDate + " were up to date" + (failed > 0 ? ", " + failed + " failed to load" : ""));
+            System.out.println("Concurrency: " + limiter);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            e.printStackTrace();
+        } finally {
+            for (CompletableFuture<FetchedPage> future : inFlight.values()) {
+                future.cancel(true);
+            }
+            ioService.shutdownNow();
+            processService.shutdown();
+            // the problems still being processed write their classes and manifest entries
+            awaitTermination(processService);
+            pageSource.setConcurrencyLimiter(null);
+            verifyWrittenFiles();
+            generateRegistry(writer);
+            saveResourceMirror();
+            saveManifest();
+            fireRunFinished(System.nanoTime() - start);
         }
-        executorService.shutdown();
         System.out.println("Finished!");
     }
 
+    /**
+     * Generates source files for all problems in a local archive instead of downloading
+     * them. The problems are processed in parallel on all cores. Also generates a
+     * EulerConfig.java File if it doesnt allready exist.
+     *
+     * @param archive
+     *            a directory or zip file with one html file per problem, or a bundle file
+     *            (see {@link ArchivePageSource})
+     * @param overwriteExisting
+     *            if the Java Files should be overwritten when allready existant
+     * @throws IOException
+     *             if the archive can't be opened
+     */
+    public void generateFromArchive(Path archive, boolean overwriteExisting) throws IOException {
+        long start = System.nanoTime();
+        fireRunStarted();
+        SourceWriter writer = new SourceWriter();
+        generateEulerConfig(writer);
+        ExecutorService processService = Executors.newFixedThreadPool(
+                Runtime.getRuntime().availableProcessors());
+        try (ArchivePageSource archivePageSource = ArchivePageSource.open(archive)) {
+            List<Callable<SourceGenResult>> callableList = new ArrayList<>();
+            for (int problemNo : archivePageSource.getProblemNos()) {
+                callableList.add(() -> {
+                    long fetchStart = System.nanoTime();
+                    ProblemPage page = archivePageSource.getPage(problemNo);
+                    // images and data files are read from the archive as well, never downloaded
+                    return process(check(page, System.nanoTime() - fetchStart), overwriteExisting, writer,
+                            archivePageSource);
+                });
+            }
+
+            int generated = 0;
+            for (Future<SourceGenResult> future : processService.invokeAll(callableList)) {
+                try {
+                    if (future.get().continueGen) {
+                        generated++;
+                    }
+                } catch (ExecutionException e) {
+                    e.printStackTrace();
+                }
+            }
+            System.out.println("Generated " + generated + " of " + callableList.size() + " problems from " + archive);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            processService.shutdown();
+            awaitTermination(processService);
+            verifyWrittenFiles();
+            generateRegistry(writer);
+            saveResourceMirror();
+            saveManifest();
+            fireRunFinished(System.nanoTime() - start);
+        }
+    }
+
     // #########################################################################
     // ############################## PRIVATE API ##############################
     // #########################################################################
 
-    private SourceGenResult _generate(int problemNo, boolean overwriteExisting) {
+    private SourceGenResult _generate(int problemNo, boolean overwriteExisting, SourceWriter writer) {
+        return process(fetchAsync(problemNo, Runnable::run).join(), overwriteExisting, writer, pageSource);
+    }
+
+    /**
+     * Fetch stage, loads the webpage of the problem and checks if it contains a problem
+     * at all. Never completes exceptionally, a webpage that couldn't be loaded is marked
+     * as failed.
+     *
+     * @param executor
+     *            executor for blocking work of the {@link PageSource}
+     */
+    private CompletableFuture<FetchedPage> fetchAsync(int problemNo, Executor executor) {
         if (problemNo < 0) {
             throw new IllegalArgumentException("There surely are no negative Problems...");
         }
 
-        StringBuffer sb = getWebpageAsString(URL_PREFIX + problemNo);
+        long fetchStart = System.nanoTime();
+        CompletableFuture<ProblemPage> source = pageSource.getPageAsync(problemNo, executor);
+        // cancelling the fetch (e.g. pages after the last problem) cancels the request
+        return Futures.cancelUpstream(source, source.handle((page, error) -> {
+            long fetchNanos = System.nanoTime() - fetchStart;
+            if (error != null) {
+                if (!(Futures.unwrap(error) instanceof CancellationException)) {
+                    System.out.println("Failed to load problem " + problemNo + ": " + Futures.unwrap(error));
+                }
+                return new FetchedPage(new ProblemPage(problemNo, "", ProblemPage.Origin.UNAVAILABLE), false,
+                        true, fetchNanos);
+            }
+            return check(page, fetchNanos);
+        }));
+    }
 
-        if (sb.toString().trim().isEmpty()) {
-            System.out.println("Webpage for problem " + problemNo + " is empty!");
-        } else if (sb.indexOf("problems_table_page") != -1) {
-            System.out.println("Problem " + problemNo + " is not accessible!");
+    /**
+     * Checks if the webpage contains a problem at all
+     */
+    private static FetchedPage check(ProblemPage page, long fetchNanos) {
+        boolean accessible = false;
+        if (page.content.trim().isEmpty()) {
+            System.out.println("Webpage for problem " + page.problemNo + " is empty!");
+        } else if (ProblemPage.isProblemList(page.content)) {
+            System.out.println("Problem " + page.problemNo + " is not accessible!");
         } else {
-            int subPackageIndex = problemNo / SUBPACKAGE_SIZE;
-            String subPackage = String.format(PACKAGE_FORMAT, subPackagePrefix,
-                    subPackageIndex * SUBPACKAGE_SIZE,
-                    (subPackageIndex + 1) * SUBPACKAGE_SIZE - 1);
-            String packageString = "";
-            if (sourcePackage != null) {
-                packageString = "package " + sourcePackage + "." + subPackage + ";";
-            }
+            accessible = true;
+        }
+        return new FetchedPage(page, accessible, fetchNanos);
+    }
 
-            String javaDoc = toJavaDoc(problemNo, extractProblem(sb));
-            String generatedClassName = String.format(CLASS_NAME_FORMAT,
-                    problemClassPrefix, problemNo);
-            String generatedClass = String.format(CLASS_FORMAT, packageString,
-                    javaDoc, generatedClassName, sourcePackage);
+    /**
+     * Runs the extract, render and write stages for a fetched page. A problem that fails
+     * (e.g. because of a malformed webpage) is reported and doesn't stop the other
+     * problems.
+     *
+     * @param source
+     *            the source the page came from, the images and data files of the problem
+     *            are mirrored through it
+     */
+    private SourceGenResult process(FetchedPage page, boolean overwriteExisting, SourceWriter writer,
+            PageSource source) {
+        try {
+            return _process(page, overwriteExisting, writer, source);
+        } catch (RuntimeException e) {
+            System.out.println("Failed to generate problem " + page.problemNo + ": " + e);
+            e.printStackTrace();
+            return finish(page, ProblemMetrics.Outcome.FAILED, 0, 0, 0);
+        }
+    }
 
-            try {
-                Path classSavePath = sourceDestinationFolder.resolve(subPackage);
-                if (!Files.exists(classSavePath)) {
-                    Files.createDirectories(classSavePath);
+    /**
+     * Existing classes are only touched if the statement of the problem changed since it
+     * was generated (according to the manifest), and then only their Javadoc header gets
+     * replaced.
+     */
+    private SourceGenResult _process(FetchedPage page, boolean overwriteExisting, SourceWriter writer,
+            PageSource source) {
+        if (page.failed) {
+            return finish(page, ProblemMetrics.Outcome.FAILED, 0, 0, 0);
+        }
+        if (!page.accessible) {
+            return finish(page, ProblemMetrics.Outcome.NOT_ACCESSIBLE, 0, 0, 0);
+        }
+        long extractStart = System.nanoTime();
+        int problemNo = page.problemNo;
+        long now = System.currentTimeMillis();
+        GenerationManifest manifest = getManifest();
+        GenerationManifest.Entry previous = manifest.get(problemNo);
+        String pageHash = Hashes.sha256(page.content);
+
+        String subPackage = getSubPackage(problemNo);
+        String generatedClassName = String.format(CLASS_NAME_FORMAT, problemClassPrefix, problemNo);
+        Path problemFilePath = sourceDestinationFolder.resolve(subPackage).resolve(generatedClassName + ".java");
+        boolean exists;
+        try {
+            exists = writer.exists(problemFilePath);
+        } catch (IOException e) {
+            e.printStackTrace();
+            return finish(page, ProblemMetrics.Outcome.FAILED, System.nanoTime() - extractStart, 0, 0);
+        }
+        if (exists && !overwriteExisting && previous != null && pageHash.equals(previous.pageHash)) {
+            manifest.put(previous.checkedAt(now));
+            return finish(page, ProblemMetrics.Outcome.UNCHANGED, System.nanoTime() - extractStart, 0, 0);
+        }
+
+        String javaDoc = mirrorResources ? extractWithResources(problemNo, page.content, problemFilePath, source)
+                : ProblemExtractor.toJavaDoc(problemNo, page.content);
+        if (javaDoc == null) {
+            System.out.println("Webpage for problem " + problemNo + " contains no complete problem!");
+            return finish(page, ProblemMetrics.Outcome.FAILED, System.nanoTime() - extractStart, 0, 0);
+        }
+        String statementHash = Hashes.sha256(javaDoc);
+        long extractNanos = System.nanoTime() - extractStart;
+        long renderNanos = 0;
+        long writeStart = System.nanoTime();
+        try {
+            String headerHash;
+            ProblemMetrics.Outcome outcome;
+            if (!exists || overwriteExisting) {
+                long renderStart = System.nanoTime();
+                String generatedClass = render(problemNo, subPackage, generatedClassName, javaDoc);
+                writeStart = System.nanoTime();
+                renderNanos = writeStart - renderStart;
+                SourceWriter.Outcome written = writer.write(problemFilePath, generatedClass);
+                if (written == SourceWriter.Outcome.UPDATED) {
+                    System.out.println("Overwrote File: " + problemFilePath);
                 }
-                Path problemFilePath = classSavePath.resolve(generatedClassName + ".java");
-                if (!Files.exists(problemFilePath)) {
-                    Files.write(problemFilePath, generatedClass.getBytes(),
-                            StandardOpenOption.CREATE, StandardOpenOption.WRITE);
-                } else if (overwriteExisting) {
-                    System.out.println("Overwriting File: " + problemFilePath);
-                    Files.write(problemFilePath, generatedClass.getBytes(),
-                            StandardOpenOption.CREATE, StandardOpenOption.WRITE);
-                } else {
-                    System.out.println("File allready exists: " + problemFilePath);
+                headerHash = statementHash;
+                outcome = written == SourceWriter.Outcome.CREATED ? ProblemMetrics.Outcome.CREATED
+                        : written == SourceWriter.Outcome.UPDATED ? ProblemMetrics.Outcome.UPDATED
+                        : ProblemMetrics.Outcome.UNCHANGED;
+            } else if (previous != null && statementHash.equals(previous.statementHash)) {
+                // only the webpage around the statement changed
+                headerHash = previous.headerHash;
+                outcome = ProblemMetrics.Outcome.UNCHANGED;
+            } else {
+                headerHash = updateJavaDoc(problemFilePath, problemNo, javaDoc, previous, writer);
+                if (headerHash == null) {
+                    return finish(page, ProblemMetrics.Outcome.UNCHANGED, extractNanos, 0,
+                            System.nanoTime() - writeStart);
                 }
-                return new SourceGenResult(problemNo, true);
-            } catch (IOException e) {
+                outcome = previous == null ? ProblemMetrics.Outcome.UNCHANGED : ProblemMetrics.Outcome.UPDATED;
+            }
+            if (outcome == ProblemMetrics.Outcome.CREATED || outcome == ProblemMetrics.Outcome.UPDATED) {
+                writtenFiles.put(problemFilePath, problemNo);
+            }
+            manifest.put(new GenerationManifest.Entry(problemNo, now, pageHash, statementHash, headerHash));
+            return finish(page, outcome, extractNanos, renderNanos, System.nanoTime() - writeStart);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        return finish(page, ProblemMetrics.Outcome.FAILED, extractNanos, renderNanos, System.nanoTime() - writeStart);
+    }
+
+    /**
+     * Extract stage with mirroring, loads all images and data files of the problem in
+     * parallel through the source and links the mirrored files relative to the class
+     */
+    private String extractWithResources(int problemNo, String content, Path problemFilePath, PageSource source) {
+        ProblemExtractor.Extraction extraction = ProblemExtractor.extract(problemNo, content);
+        if (extraction == null) {
+            return null;
+        }
+        if (extraction.resources.isEmpty()) {
+            return extraction.javaDoc;
+        }
+        ResourceMirror mirror = getResourceMirror();
+        Map<String, CompletableFuture<Path>> files = new HashMap<>();
+        for (String path : extraction.resources) {
+            files.computeIfAbsent(path, p -> mirror.mirror(p, source, Runnable::run));
+        }
+        Path classFolder = problemFilePath.getParent();
+        return extraction.relink(path -> {
+            try {
+                return classFolder.relativize(files.get(path).join()).toString().replace(File.separatorChar, '/');
+            } catch (CompletionException | CancellationException e) {
+                mirror.failed(path, Futures.unwrap(e));
+                return null;
+            }
+        });
+    }
+
+    /**
+     * Waits for the tasks of the shut down executor, an interrupt stops them instead
+     */
+    private static void awaitTermination(ExecutorService executorService) {
+        try {
+            executorService.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            executorService.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Reports the metrics of the processed page to the listeners
+     */
+    private SourceGenResult finish(FetchedPage page, ProblemMetrics.Outcome outcome, long extractNanos,
+            long renderNanos, long writeNanos) {
+        fireProblemProcessed(new ProblemMetrics(page.problemNo, outcome, page.origin, page.transferredBytes,
+                page.fetchNanos, extractNanos, renderNanos, writeNanos));
+        return new SourceGenResult(page.problemNo,
+                outcome != ProblemMetrics.Outcome.NOT_ACCESSIBLE && outcome != ProblemMetrics.Outcome.FAILED);
+    }
+
+    private void fireRunStarted() {
+        for (GenerationListener listener : listeners) {
+            try {
+                listener.runStarted();
+            } catch (RuntimeException e) {
                 e.printStackTrace();
             }
         }
-        return new SourceGenResult(problemNo, false);
     }
 
-    private void generateEulerConfig() {
+    private void fireProblemProcessed(ProblemMetrics metrics) {
+        for (GenerationListener listener : listeners) {
+            try {
+                listener.problemProcessed(metrics);
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    private void fireRunFinished(long wallNanos) {
+        for (GenerationListener listener : listeners) {
+            try {
+                listener.runFinished(wallNanos);
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * Replaces the Javadoc header of an existing class, the rest of the class stays
+     * untouched. Headers of classes that aren't in the manifest yet are adopted as they
+     * are, headers that were changed by hand are never replaced.
+     *
+     * @return the hash of the header now in the class, or null if the header couldn't be
+     *         updated
+     */
+    private static String updateJavaDoc(Path problemFilePath, int problemNo, String javaDoc,
+            GenerationManifest.Entry previous, SourceWriter writer) throws IOException {
+        String source = new String(Files.readAllBytes(problemFilePath), StandardCharsets.UTF_8);
+        int[] range = ProblemExtractor.findJavaDoc(source, problemNo);
+        if (range == null) {
+            System.out.println("Couldn't find the Javadoc of problem " + problemNo + " in: " + problemFilePath);
+            return null;
+        }
+        String currentHeaderHash = Hashes.sha256(source.substring(range[0], range[1]));
+        if (previous == null) {
+            System.out.println("File allready exists: " + problemFilePath);
+            return currentHeaderHash;
+        }
+        if (!currentHeaderHash.equals(previous.headerHash)) {
+            System.out.println("Javadoc was changed by hand, not updating it: " + problemFilePath);
+            return null;
+        }
+        System.out.println("Updating Javadoc of: " + problemFilePath);
+        writer.write(problemFilePath, source.substring(0, range[0]) + javaDoc + source.substring(range[1]));
+        return Hashes.sha256(javaDoc);
+    }
+
+    /**
+     * @return if the class of the problem exists and its webpage was checked recently
+     *         enough
+     */
+    private boolean isUpToDate(int problemNo, SourceWriter writer) {
+        GenerationManifest.Entry entry = getManifest().get(problemNo);
+        if (entry == null || System.currentTimeMillis() - entry.checkedAt > TimeUnit.DAYS.toMillis(RECHECK_AFTER_DAYS)) {
+            return false;
+        }
+        String generatedClassName = String.format(CLASS_NAME_FORMAT, problemClassPrefix, problemNo);
         try {
-            Path eulerConfigPath = sourceDestinationFolder.resolve("EulerConfig.java");
-            if (!Files.exists(eulerConfigPath)) {
-                if (!Files.exists(sourceDestinationFolder)) {
-                    Files.createDirectories(sourceDestinationFolder);
+            return writer.exists(sourceDestinationFolder.resolve(getSubPackage(problemNo))
+                    .resolve(generatedClassName + ".java"));
+        } catch (IOException e) {
+            e.printStackTrace();
+            return false;
+        }
+    }
+
+    private synchronized GenerationManifest getManifest() {
+        if (manifest == null) {
+            try {
+                manifest = GenerationManifest.load(sourceDestinationFolder);
+            } catch (IOException e) {
+                e.printStackTrace();
+                manifest = new GenerationManifest(sourceDestinationFolder);
+            }
+        }
+        return manifest;
+    }
+
+    private synchronized ResourceMirror getResourceMirror() {
+        if (resourceMirror == null) {
+            Path folder = sourceDestinationFolder.resolve(RESOURCE_FOLDER);
+            try {
+                resourceMirror = ResourceMirror.load(folder);
+            } catch (IOException e) {
+                e.printStackTrace();
+                try {
+                    resourceMirror = ResourceMirror.load(folder.resolveSibling(RESOURCE_FOLDER + "-unreadable"));
+                } catch (IOException e2) {
+                    throw new UncheckedIOException(e2);
                 }
-                String eulerConfigClass = String.format(CONFIG_CLASS_FORMAT,
-                        "package " + sourcePackage + ";");
-                Files.write(eulerConfigPath, eulerConfigClass.getBytes());
             }
+        }
+        return resourceMirror;
+    }
+
+    private synchronized void saveResourceMirror() {
+        if (resourceMirror == null) {
+            return;
+        }
+        try {
+            resourceMirror.save();
         } catch (IOException e) {
             e.printStackTrace();
         }
     }
 
-    private static String toJavaDoc(int problemNo, String problem) {
-        StringBuffer sb = new StringBuffer();
-        sb.append("/**\n");
-        sb.append(" * ").append(String.format(HEADING_FORMAT, problemNo)).append("\n");
-        for (String line : problem.split("\n")) {
-            sb.append(" * ").append(line).append("\n");
+    private void saveManifest() {
+        try {
+            getManifest().save();
+        } catch (IOException e) {
+            e.printStackTrace();
         }
-        sb.append(" */");
-        return sb.toString();
     }
 
-    private static StringBuffer getWebpageAsString(String url) {
-        StringBuffer sb = new StringBuffer();
-        try {
-            URL problemUrl = new URL(url);
+    private String getSubPackage(int problemNo) {
+        int subPackageIndex = problemNo / SUBPACKAGE_SIZE;
+        return String.format(PACKAGE_FORMAT, subPackagePrefix,
+                subPackageIndex * SUBPACKAGE_SIZE,
+                (subPackageIndex + 1) * SUBPACKAGE_SIZE - 1);
+    }
 
-            BufferedReader in = new BufferedReader(
-                    new InputStreamReader(problemUrl.openStream()));
+    /**
+     * Render stage, fills the class template
+     */
+    private String render(int problemNo, String subPackage, String generatedClassName, String javaDoc) {
+        Map<SourceTemplate.Placeholder, String> values = new EnumMap<>(SourceTemplate.Placeholder.class);
+        String packageName = sourcePackage + "." + subPackage;
+        values.put(SourceTemplate.Placeholder.PACKAGE, packageName);
+        values.put(SourceTemplate.Placeholder.PACKAGE_DECLARATION, "package " + packageName + ";");
+        values.put(SourceTemplate.Placeholder.JAVADOC, javaDoc);
+        values.put(SourceTemplate.Placeholder.CLASS_NAME, generatedClassName);
+        values.put(SourceTemplate.Placeholder.CONFIG_PACKAGE, sourcePackage);
+        values.put(SourceTemplate.Placeholder.PROBLEM_NO, Integer.toString(problemNo));
+
+        StringBuilder buffer = RENDER_BUFFER.get();
+        buffer.setLength(0);
+        classTemplate.render(values, buffer);
+        return buffer.toString();
+    }
 
-            String line = null;
-            while ((line = in.readLine()) != null) {
-                sb.append(line).append("\n");
+    private void generateEulerConfig(SourceWriter writer) {
+        try {
+            Path eulerConfigPath = sourceDestinationFolder.resolve("EulerConfig.java");
+            if (!writer.exists(eulerConfigPath)) {
+                Map<SourceTemplate.Placeholder, String> values = new EnumMap<>(SourceTemplate.Placeholder.class);
+                values.put(SourceTemplate.Placeholder.PACKAGE, sourcePackage);
+                values.put(SourceTemplate.Placeholder.PACKAGE_DECLARATION, "package " + sourcePackage + ";");
+                values.put(SourceTemplate.Placeholder.CLASS_NAME, "EulerConfig");
+                values.put(SourceTemplate.Placeholder.CONFIG_PACKAGE, sourcePackage);
+                values.put(SourceTemplate.Placeholder.RESOURCE_FOLDER, getResourceFolderLiteral());
+                writer.write(eulerConfigPath, configTemplate.render(values));
             }
-            in.close();
         } catch (IOException e) {
             e.printStackTrace();
         }
-        return sb;
-    }
-
-    private static String extractProblem(StringBuffer sb) {
-        String substring = null;
-
-        int indexOf = sb.indexOf(SEARCH_BEGIN);
-        if (indexOf != -1) {
-            int nextIndexOf = -1;
-            Matcher matcher = Pattern.compile(DIV_REGEX)
-                    .matcher(sb.toString().substring(indexOf));
-            int count = 0;
-            while (matcher.find() && !matcher.hitEnd()) {
-                String begin = matcher.group("begin");
-                String end = matcher.group("end");
-                if (begin != null) {
-                    count++;
-                } else if (end != null) {
-                    count--;
+    }
+
+    /**
+     * @return the resource folder for a Java String literal, relative to the working
+     *         directory if it is inside
+     */
+    private String getResourceFolderLiteral() {
+        Path folder = sourceDestinationFolder.resolve(RESOURCE_FOLDER).toAbsolutePath().normalize();
+        Path workingDirectory = Paths.get("").toAbsolutePath();
+        Path path = folder.startsWith(workingDirectory) ? workingDirectory.relativize(folder) : folder;
+        return path.toString().replace('\\', '/').replace("\"", "\\\"");
+    }
+
+    /**
+     * Verification stage, compiles the classes written by the run in one compiler run and
+     * reports the errors per problem
+     */
+    private void verifyWrittenFiles() {
+        Map<Path, Integer> files = new TreeMap<>(writtenFiles);
+        writtenFiles.clear();
+        if (!verifySources || files.isEmpty()) {
+            return;
+        }
+        List<Path> sourceFiles = new ArrayList<>(files.keySet());
+        sourceFiles.add(sourceDestinationFolder.resolve("EulerConfig.java"));
+        long start = System.nanoTime();
+        try {
+            Map<Path, List<String>> errors = SourceVerifier.verify(sourceFiles);
+            System.out.println("Verified " + files.size() + " generated classes in "
+                    + (System.nanoTime() - start) / 1_000_000 + " ms, "
+                    + (errors.isEmpty() ? "all compile" : errors.size() + " with errors"));
+            for (Map.Entry<Path, List<String>> fileErrors : errors.entrySet()) {
+                Path file = fileErrors.getKey();
+                Integer problemNo = file == null ? null : files.get(file);
+                String prefix = problemNo != null ? "Problem " + problemNo + " doesn't compile: "
+                        : file != null ? file + " doesn't compile: " : "Compiler error: ";
+                for (String error : fileErrors.getValue()) {
+                    System.out.println(prefix + error);
                 }
-                if (count == 0) {
-                    nextIndexOf = matcher.start();
-                    break;
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Writes the {@link ProblemRegistry} with every problem class in the destination
+     * folder, it only changes when problems were added or removed.
+     */
+    private void generateRegistry(SourceWriter writer) {
+        Pattern subPackagePattern = Pattern.compile(Pattern.quote(subPackagePrefix) + "\\d+_\\d+");
+        Pattern classPattern = Pattern.compile(Pattern.quote(problemClassPrefix) + "(\\d+)\\.java");
+        SortedMap<Integer, String> problems = new TreeMap<>();
+        try (DirectoryStream<Path> subPackages = Files.newDirectoryStream(sourceDestinationFolder,
+                path -> Files.isDirectory(path) && subPackagePattern.matcher(path.getFileName().toString()).matches())) {
+            for (Path subPackage : subPackages) {
+                try (DirectoryStream<Path> classes = Files.newDirectoryStream(subPackage)) {
+                    for (Path problemFile : classes) {
+                        String fileName = problemFile.getFileName().toString();
+                        Matcher matcher = classPattern.matcher(fileName);
+                        if (matcher.matches()) {
+                            problems.put(Integer.parseInt(matcher.group(1)), sourcePackage + "."
+                                    + subPackage.getFileName() + "." + fileName.substring(0, fileName.length() - 5));
+                        }
+                    }
                 }
             }
 
-            if (nextIndexOf != -1) {
-                substring = sb.substring(indexOf + SEARCH_BEGIN.length(), indexOf + nextIndexOf).trim();
+            StringBuilder sb = new StringBuilder(256 + problems.size() * 128);
+            sb.append("package ").append(sourcePackage).append(";\n")
+                    .append("\n")
+                    .append("import java.util.*;\n")
+                    .append("import de.nxg.eusocog.*;\n")
+                    .append("\n")
+                    .append("/**\n")
+                    .append(" * All generated problems by number. Generated by the EulerSourceGenerator, changes\n")
+                    .append(" * get overwritten when problems are added.\n")
+                    .append(" */\n")
+                    .append("public final class ").append(REGISTRY_CLASS_NAME).append(" implements ProblemRegistry {\n")
+                    .append("\n")
+                    .append("    private static final ").append(REGISTRY_CLASS_NAME).append(" instance = new ")
+                    .append(REGISTRY_CLASS_NAME).append("();\n")
+                    .append("\n")
+                    .append("    private final NavigableMap<Integer, Entry> problems = new TreeMap<>();\n")
+                    .append("\n")
+                    .append("    private ").append(REGISTRY_CLASS_NAME).append("() {\n");
+            for (Map.Entry<Integer, String> problem : problems.entrySet()) {
+                String className = problem.getValue();
+                sb.append("        add(new Entry(").append(problem.getKey()).append(", ").append(className)
+                        .append(".class, ").append(className).append("::new));\n");
             }
+            sb.append("    }\n")
+                    .append("\n")
+                    .append("    public static ").append(REGISTRY_CLASS_NAME).append(" getInstance() {\n")
+                    .append("        return instance;\n")
+                    .append("    }\n")
+                    .append("\n")
+                    .append("    @Override\n")
+                    .append("    public NavigableMap<Integer, Entry> getProblems() {\n")
+                    .append("        return Collections.unmodifiableNavigableMap(problems);\n")
+                    .append("    }\n")
+                    .append("\n")
+                    .append("    private void add(Entry entry) {\n")
+                    .append("        problems.put(entry.problemNo, entry);\n")
+                    .append("    }\n")
+                    .append("\n")
+                    .append("}\n");
+            writer.write(sourceDestinationFolder.resolve(REGISTRY_CLASS_NAME + ".java"), sb.toString());
+        } catch (IOException e) {
+            e.printStackTrace();
         }
-        if (substring != null) {
-            substring = substring.replaceAll(IMAGE_REGEX, IMAGE_REGEX_REPLACEMENT);
-        }
-        return substring;
     }
 
-    private static int getSystemProperty(String property, int fallbackDefault) {
+    static int getSystemProperty(String property, int fallbackDefault) {
         String value = System.getProperty(property);
         if (value != null && !value.isEmpty()) {
             try {
@@ -440,7 +1106,59 @@ public final class EulerSourceGenerator {
 
         @Override
         public SourceGenResult call() throws Exception {
-            return generator._generate(problemNo, false);
+            return generator._generate(problemNo, false, new SourceWriter());
+        }
+
+    }
+
+    private static final class ProcessCallable implements Callable<SourceGenResult> {
+
+        private EulerSourceGenerator generator;
+        private FetchedPage page;
+        private boolean overwriteExisting;
+        private SourceWriter writer;
+
+        private ProcessCallable(EulerSourceGenerator generator, FetchedPage page,
+                boolean overwriteExisting, SourceWriter writer) {
+            this.generator = generator;
+            this.page = page;
+            this.overwriteExisting = overwriteExisting;
+            this.writer = writer;
+        }
+
+        @Override
+        public SourceGenResult call() throws Exception {
+            return generator.process(page, overwriteExisting, writer, generator.pageSource);
+        }
+
+    }
+
+    private static final class FetchedPage {
+
+        /** The Problem that got fetched */
+        private final int problemNo;
+        /** The whole webpage */
+        private final String content;
+        /** If the webpage contains a problem */
+        private final boolean accessible;
+        /** If the webpage couldn't be loaded, that says nothing about the problem */
+        private final boolean failed;
+        private final ProblemPage.Origin origin;
+        private final long transferredBytes;
+        private final long fetchNanos;
+
+        private FetchedPage(ProblemPage page, boolean accessible, long fetchNanos) {
+            this(page, accessible, false, fetchNanos);
+        }
+
+        private FetchedPage(ProblemPage page, boolean accessible, boolean failed, long fetchNanos) {
+            this.problemNo = page.problemNo;
+            this.content = page.content;
+            this.accessible = accessible;
+            this.failed = failed;
+            this.origin = page.origin;
+            this.transferredBytes = page.transferredBytes;
+            this.fetchNanos = fetchNanos;
         }
 
     }
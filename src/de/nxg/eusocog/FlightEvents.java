@@ -0,0 +1,192 @@
+package de.nxg.eusocog;
+
+import java.io.*;
+import java.nio.file.*;
+import java.text.*;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+
+import jdk.jfr.*;
+
+/**
+ * The Java Flight Recorder part of {@link SolveEvents}, the only class besides its events
+ * that links the jdk.jfr module. Only used through {@link SolveEvents}.
+ */
+final class FlightEvents {
+
+    private static final Set<EulerProblem> RUNNING = ConcurrentHashMap.newKeySet();
+    private static volatile boolean progressRegistered;
+
+    private FlightEvents() {}
+
+    /**
+     * @return if the flight recorder is running
+     */
+    static boolean isRecording() {
+        return FlightRecorder.isInitialized();
+    }
+
+    /**
+     * Starts a recording with the "profile" settings that is written to the file when it
+     * gets stopped
+     *
+     * @return null if the recording couldn't be started
+     */
+    static Recording startRecording(String name, Path file, long progressIntervalMillis) {
+        try {
+            Recording recording = new Recording(Configuration.getConfiguration("profile"));
+            recording.setName(name);
+            recording.setDestination(file.toAbsolutePath());
+            recording.setToDisk(true);
+            recording.enable(Progress.class).withPeriod(Duration.ofMillis(
+                    progressIntervalMillis > 0 ? progressIntervalMillis : 1000));
+            recording.start();
+            return recording;
+        } catch (IOException | ParseException | RuntimeException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    /**
+     * Stops the recording and writes it to its destination
+     */
+    static void stopRecording(Object handle) {
+        Recording recording = (Recording) handle;
+        try {
+            recording.stop();
+            System.out.println("Flight recording written to " + recording.getDestination());
+        } catch (RuntimeException e) {
+            e.printStackTrace();
+        } finally {
+            recording.close();
+        }
+    }
+
+    /**
+     * Begins the solve span of the problem and samples its progress until
+     * {@link #endSolve(Object, EulerProblem, SolveResult.Status)}
+     */
+    static Solve beginSolve(EulerProblem problem) {
+        registerProgress();
+        RUNNING.add(problem);
+        Solve event = new Solve();
+        event.problem = problem.getClass().getName();
+        event.begin();
+        return event;
+    }
+
+    static void endSolve(Object span, EulerProblem problem, SolveResult.Status status) {
+        Solve event = (Solve) span;
+        event.end();
+        RUNNING.remove(problem);
+        if (event.shouldCommit()) {
+            event.status = status.name();
+            event.commit();
+        }
+    }
+
+    static void checkpoint(EulerProblem problem, String name, long elapsedNanos) {
+        Checkpoint event = new Checkpoint();
+        if (event.shouldCommit()) {
+            event.problem = problem.getClass().getName();
+            event.name = name;
+            event.elapsed = elapsedNanos;
+            event.commit();
+        }
+    }
+
+    private static void registerProgress() {
+        if (progressRegistered) {
+            return;
+        }
+        synchronized (RUNNING) {
+            if (!progressRegistered) {
+                FlightRecorder.addPeriodicEvent(Progress.class, FlightEvents::sampleProgress);
+                progressRegistered = true;
+            }
+        }
+    }
+
+    private static void sampleProgress() {
+        for (EulerProblem problem : RUNNING) {
+            long progress = problem.getProgress();
+            if (progress < 0) {
+                continue;
+            }
+            Progress event = new Progress();
+            event.problem = problem.getClass().getName();
+            event.progress = progress;
+            event.total = problem.getProgressTotal();
+            Object state = problem.getProgressState();
+            if (state != null) {
+                try {
+                    event.state = EulerProblem.objectToString(state);
+                } catch (RuntimeException e) {
+                    // the state may be changed by the solving thread while it's printed
+                    event.state = "<" + e + ">";
+                }
+            }
+            event.commit();
+        }
+    }
+
+    // #########################################################################
+    // ############################ INNER CLASSES ##############################
+    // #########################################################################
+
+    @Name("de.nxg.eusocog.Solve")
+    @Label("Solve")
+    @Category("EuSoCoG")
+    @Description("A call of EulerProblem.solve()")
+    @StackTrace(false)
+    static final class Solve extends Event {
+
+        @Label("Problem")
+        String problem;
+
+        @Label("Status")
+        String status;
+    }
+
+    @Name("de.nxg.eusocog.Checkpoint")
+    @Label("Checkpoint")
+    @Category("EuSoCoG")
+    @Description("A call of EulerProblem.time(String)")
+    static final class Checkpoint extends Event {
+
+        @Label("Problem")
+        String problem;
+
+        @Label("Name")
+        String name;
+
+        @Label("Elapsed")
+        @Description("Time since solve() started")
+        @Timespan
+        long elapsed;
+    }
+
+    @Name("de.nxg.eusocog.Progress")
+    @Label("Progress")
+    @Category("EuSoCoG")
+    @Description("The progress published by a solving problem")
+    @Period("1 s")
+    @StackTrace(false)
+    static final class Progress extends Event {
+
+        @Label("Problem")
+        String problem;
+
+        @Label("Progress")
+        long progress;
+
+        @Label("Total")
+        @Description("-1 if unknown")
+        long total;
+
+        @Label("State")
+        String state;
+    }
+}
@@ -0,0 +1,67 @@
+package de.nxg.eusocog;
+
+import java.io.*;
+import java.util.concurrent.*;
+
+/**
+ * Helpers for the {@link CompletableFuture}s of the asynchronous {@link PageSource}s
+ */
+final class Futures {
+
+    private Futures() {}
+
+    /**
+     * Waits for the future and rethrows a failure as {@link IOException}
+     */
+    static <T> T join(CompletableFuture<T> future) throws IOException {
+        try {
+            return future.join();
+        } catch (CompletionException | CancellationException e) {
+            throw toIOException(e);
+        }
+    }
+
+    /**
+     * Cancels the upstream future when the dependent future gets cancelled. A
+     * {@link CompletableFuture} only passes a cancellation down to its dependent stages,
+     * never up to the stage it depends on.
+     *
+     * @return the dependent future
+     */
+    static <T> CompletableFuture<T> cancelUpstream(CompletableFuture<?> upstream, CompletableFuture<T> dependent) {
+        dependent.whenComplete((result, error) -> {
+            if (dependent.isCancelled()) {
+                upstream.cancel(true);
+            }
+        });
+        return dependent;
+    }
+
+    /**
+     * @return the cause of a {@link CompletionException} or {@link ExecutionException}
+     */
+    static Throwable unwrap(Throwable throwable) {
+        while ((throwable instanceof CompletionException || throwable instanceof ExecutionException)
+                && throwable.getCause() != null) {
+            throwable = throwable.getCause();
+        }
+        return throwable;
+    }
+
+    static IOException toIOException(Throwable throwable) {
+        Throwable cause = unwrap(throwable);
+        if (cause instanceof IOException) {
+            return (IOException) cause;
+        }
+        if (cause instanceof UncheckedIOException) {
+            return ((UncheckedIOException) cause).getCause();
+        }
+        if (cause instanceof RuntimeException) {
+            throw (RuntimeException) cause;
+        }
+        if (cause instanceof Error) {
+            throw (Error) cause;
+        }
+        return new IOException(cause);
+    }
+}
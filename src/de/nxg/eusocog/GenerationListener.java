@@ -0,0 +1,39 @@
+package de.nxg.eusocog;
+
+/**
+ * Gets notified about the progress of the {@link EulerSourceGenerator}. Every call of
+ * {@link EulerSourceGenerator#generate(int)}, {@link EulerSourceGenerator#generateAll()}
+ * etc. is one run.
+ * <p>
+ * Methods may be called concurrently from different threads and should return quickly.
+ *
+ * @see GenerationMetrics
+ * @see EulerSourceGenerator#addListener(GenerationListener)
+ */
+public interface GenerationListener {
+
+    /**
+     * Called before the first problem of a run gets processed
+     */
+    public default void runStarted() {
+
+    }
+
+    /**
+     * Called for every problem after it was processed
+     */
+    public default void problemProcessed(ProblemMetrics metrics) {
+
+    }
+
+    /**
+     * Called after the last problem of a run was processed
+     *
+     * @param wallNanos
+     *            how long the whole run took
+     */
+    public default void runFinished(long wallNanos) {
+
+    }
+
+}
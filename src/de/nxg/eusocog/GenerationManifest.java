@@ -0,0 +1,133 @@
+package de.nxg.eusocog;
+
+import java.io.*;
+import java.nio.charset.*;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Remembers for every generated problem when it was last checked and the hashes of its
+ * webpage, its extracted statement and the Javadoc header written into the class. That
+ * way the {@link EulerSourceGenerator} only fetches problems that are new or stale and
+ * only rewrites headers whose statement actually changed.
+ * <p>
+ * Saved as tab separated text file, one line per problem.
+ */
+final class GenerationManifest {
+
+    static final String FILE_NAME = ".eusocog-manifest";
+
+    private static final String HEADER = "# EuSoCoG generation manifest\n"
+            + "# problemNo\tcheckedAt\tpageHash\tstatementHash\theaderHash\n";
+
+    private final Path manifestPath;
+    private final ConcurrentNavigableMap<Integer, Entry> entries = new ConcurrentSkipListMap<>();
+    private volatile boolean dirty;
+
+    /**
+     * Creates a new, empty manifest for the folder
+     */
+    GenerationManifest(Path folder) {
+        this.manifestPath = folder.resolve(FILE_NAME);
+    }
+
+    /**
+     * Loads the manifest from the folder, the manifest is empty if the folder contains
+     * none (yet)
+     */
+    static GenerationManifest load(Path folder) throws IOException {
+        GenerationManifest manifest = new GenerationManifest(folder);
+        if (Files.exists(manifest.manifestPath)) {
+            for (String line : Files.readAllLines(manifest.manifestPath, StandardCharsets.UTF_8)) {
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                String[] columns = line.split("\t");
+                if (columns.length != 5) {
+                    System.out.println("Ignoring malformed manifest line: " + line);
+                    continue;
+                }
+                try {
+                    Entry entry = new Entry(Integer.parseInt(columns[0]), Long.parseLong(columns[1]),
+                            columns[2], columns[3], columns[4]);
+                    manifest.entries.put(entry.problemNo, entry);
+                } catch (NumberFormatException e) {
+                    System.out.println("Ignoring malformed manifest line: " + line);
+                }
+            }
+        }
+        return manifest;
+    }
+
+    /**
+     * @return the entry of the problem or null if the problem wasn't generated yet
+     */
+    Entry get(int problemNo) {
+        return entries.get(problemNo);
+    }
+
+    void put(Entry entry) {
+        entries.put(entry.problemNo, entry);
+        dirty = true;
+    }
+
+    /**
+     * Saves the manifest if it changed since it was loaded or saved the last time
+     */
+    synchronized void save() throws IOException {
+        if (!dirty) {
+            return;
+        }
+        // cleared before taking the entries, a put() while writing marks it dirty again
+        dirty = false;
+        StringBuilder sb = new StringBuilder(HEADER);
+        for (Entry entry : entries.values()) {
+            sb.append(entry.problemNo).append('\t')
+                    .append(entry.checkedAt).append('\t')
+                    .append(entry.pageHash).append('\t')
+                    .append(entry.statementHash).append('\t')
+                    .append(entry.headerHash).append('\n');
+        }
+        try {
+            Files.createDirectories(manifestPath.getParent());
+            SourceWriter.writeAtomically(manifestPath, sb.toString().getBytes(StandardCharsets.UTF_8));
+        } catch (IOException | RuntimeException e) {
+            dirty = true;
+            throw e;
+        }
+    }
+
+    // #########################################################################
+    // ############################ INNER CLASSES ##############################
+    // #########################################################################
+
+    static final class Entry {
+
+        final int problemNo;
+        /** when the webpage was fetched the last time (epoch millis) */
+        final long checkedAt;
+        /** hash of the whole webpage */
+        final String pageHash;
+        /** hash of the extracted statement */
+        final String statementHash;
+        /** hash of the Javadoc header as written into the class */
+        final String headerHash;
+
+        Entry(int problemNo, long checkedAt, String pageHash, String statementHash, String headerHash) {
+            this.problemNo = problemNo;
+            this.checkedAt = checkedAt;
+            this.pageHash = pageHash;
+            this.statementHash = statementHash;
+            this.headerHash = headerHash;
+        }
+
+        /**
+         * @return a copy of this entry checked at the given time
+         */
+        Entry checkedAt(long checkedAt) {
+            return new Entry(problemNo, checkedAt, pageHash, statementHash, headerHash);
+        }
+
+    }
+}
@@ -0,0 +1,169 @@
+package de.nxg.eusocog;
+
+import java.io.*;
+import java.nio.charset.*;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.atomic.*;
+
+/**
+ * {@link GenerationListener} that aggregates the {@link ProblemMetrics} of a run: counts
+ * per outcome and origin, transferred bytes and a {@link LatencyHistogram} per stage.
+ * Comparing the total time of the stages shows if a run is network-, CPU- or disk-bound.
+ * <p>
+ * The metrics are reset when a run starts. If a summary file is given, a JSON summary is
+ * written into it when a run finishes. Setting the system property
+ * {@code de.nxg.eusocog.metricsSummary} to a file path registers such a listener for
+ * every {@link EulerSourceGenerator}.
+ */
+public final class GenerationMetrics implements GenerationListener {
+
+    /** The stages every problem passes */
+    public enum Stage {
+        FETCH, EXTRACT, RENDER, WRITE
+    }
+
+    private final Path summaryFile;
+    private final EnumMap<Stage, LatencyHistogram> histograms = new EnumMap<>(Stage.class);
+    private final AtomicLongArray outcomes = new AtomicLongArray(ProblemMetrics.Outcome.values().length);
+    private final AtomicLongArray origins = new AtomicLongArray(ProblemPage.Origin.values().length);
+    private final AtomicLong transferredBytes = new AtomicLong();
+    private volatile long wallNanos;
+
+    /**
+     * Creates a new GenerationMetrics that doesn't write a summary file
+     */
+    public GenerationMetrics() {
+        this(null);
+    }
+
+    /**
+     * Creates a new GenerationMetrics
+     *
+     * @param summaryFile
+     *            the JSON summary gets written into this file after every run, may be
+     *            null
+     */
+    public GenerationMetrics(Path summaryFile) {
+        this.summaryFile = summaryFile;
+        for (Stage stage : Stage.values()) {
+            histograms.put(stage, new LatencyHistogram());
+        }
+    }
+
+    @Override
+    public void runStarted() {
+        for (LatencyHistogram histogram : histograms.values()) {
+            histogram.reset();
+        }
+        for (int i = 0; i < outcomes.length(); i++) {
+            outcomes.set(i, 0);
+        }
+        for (int i = 0; i < origins.length(); i++) {
+            origins.set(i, 0);
+        }
+        transferredBytes.set(0);
+        wallNanos = 0;
+    }
+
+    @Override
+    public void problemProcessed(ProblemMetrics metrics) {
+        outcomes.incrementAndGet(metrics.outcome.ordinal());
+        if (metrics.origin == null) {
+            return;
+        }
+        origins.incrementAndGet(metrics.origin.ordinal());
+        transferredBytes.addAndGet(metrics.transferredBytes);
+        histograms.get(Stage.FETCH).record(metrics.fetchNanos);
+        if (metrics.outcome != ProblemMetrics.Outcome.NOT_ACCESSIBLE) {
+            histograms.get(Stage.EXTRACT).record(metrics.extractNanos);
+            histograms.get(Stage.RENDER).record(metrics.renderNanos);
+            histograms.get(Stage.WRITE).record(metrics.writeNanos);
+        }
+    }
+
+    @Override
+    public void runFinished(long wallNanos) {
+        this.wallNanos = wallNanos;
+        if (summaryFile != null) {
+            try {
+                Path folder = summaryFile.toAbsolutePath().getParent();
+                Files.createDirectories(folder);
+                SourceWriter.writeAtomically(summaryFile.toAbsolutePath(), toJson().getBytes(StandardCharsets.UTF_8));
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * @return the histogram of the stage of the current (or last) run
+     */
+    public LatencyHistogram getHistogram(Stage stage) {
+        return histograms.get(stage);
+    }
+
+    /**
+     * @return how many problems had the outcome in the current (or last) run
+     */
+    public long getCount(ProblemMetrics.Outcome outcome) {
+        return outcomes.get(outcome.ordinal());
+    }
+
+    /**
+     * @return how many webpages came from the origin in the current (or last) run
+     */
+    public long getCount(ProblemPage.Origin origin) {
+        return origins.get(origin.ordinal());
+    }
+
+    /**
+     * @return the bytes received from the server in the current (or last) run
+     */
+    public long getTransferredBytes() {
+        return transferredBytes.get();
+    }
+
+    /**
+     * @return the summary of the current (or last) run as JSON object
+     */
+    public String toJson() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("{\n");
+        sb.append("  \"wallMillis\": ").append(toMillis(wallNanos)).append(",\n");
+        sb.append("  \"transferredBytes\": ").append(transferredBytes.get()).append(",\n");
+        sb.append("  \"outcomes\": {");
+        ProblemMetrics.Outcome[] outcomeValues = ProblemMetrics.Outcome.values();
+        for (int i = 0; i < outcomeValues.length; i++) {
+            sb.append(i == 0 ? "" : ", ").append('"').append(outcomeValues[i]).append("\": ").append(outcomes.get(i));
+        }
+        sb.append("},\n");
+        sb.append("  \"origins\": {");
+        ProblemPage.Origin[] originValues = ProblemPage.Origin.values();
+        for (int i = 0; i < originValues.length; i++) {
+            sb.append(i == 0 ? "" : ", ").append('"').append(originValues[i]).append("\": ").append(origins.get(i));
+        }
+        sb.append("},\n");
+        sb.append("  \"stages\": {\n");
+        Stage[] stages = Stage.values();
+        for (int i = 0; i < stages.length; i++) {
+            LatencyHistogram histogram = histograms.get(stages[i]);
+            sb.append("    \"").append(stages[i].name().toLowerCase()).append("\": {")
+                    .append("\"count\": ").append(histogram.getCount())
+                    .append(", \"totalMillis\": ").append(toMillis(histogram.getTotalNanos()))
+                    .append(", \"meanMillis\": ").append(toMillis(histogram.getMeanNanos()))
+                    .append(", \"p50Millis\": ").append(toMillis(histogram.getPercentileNanos(50)))
+                    .append(", \"p90Millis\": ").append(toMillis(histogram.getPercentileNanos(90)))
+                    .append(", \"p99Millis\": ").append(toMillis(histogram.getPercentileNanos(99)))
+                    .append(", \"maxMillis\": ").append(toMillis(histogram.getMaxNanos()))
+                    .append(i == stages.length - 1 ? "}\n" : "},\n");
+        }
+        sb.append("  }\n");
+        sb.append("}\n");
+        return sb.toString();
+    }
+
+    private static String toMillis(long nanos) {
+        return String.format(Locale.ROOT, "%.3f", nanos / 1_000_000.0);
+    }
+}
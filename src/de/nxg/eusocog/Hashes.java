@@ -0,0 +1,52 @@
+package de.nxg.eusocog;
+
+import java.nio.charset.*;
+import java.security.*;
+
+/**
+ * Hashing helpers for content addressing
+ */
+final class Hashes {
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private Hashes() {}
+
+    /**
+     * @return the SHA-256 hash of the UTF-8 encoded string as lowercase hex string
+     */
+    static String sha256(String string) {
+        return sha256(string.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @return the SHA-256 hash of the bytes as lowercase hex string
+     */
+    static String sha256(byte[] bytes) {
+        return toHex(newSha256().digest(bytes));
+    }
+
+    /**
+     * @return a new SHA-256 MessageDigest, for content that is hashed in chunks
+     */
+    static MessageDigest newSha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            // every Java platform has to support SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * @return the digest as lowercase hex string
+     */
+    static String toHex(byte[] digest) {
+        char[] hex = new char[digest.length * 2];
+        for (int i = 0; i < digest.length; i++) {
+            hex[i * 2] = HEX[(digest[i] >> 4) & 0xF];
+            hex[i * 2 + 1] = HEX[digest[i] & 0xF];
+        }
+        return new String(hex);
+    }
+}
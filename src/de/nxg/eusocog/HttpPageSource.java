@@ -0,0 +1,355 @@
+package de.nxg.eusocog;
+
+import java.io.*;
+import java.net.*;
+import java.net.http.*;
+import java.nio.charset.*;
+import java.time.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+import java.util.zip.*;
+
+/**
+ * Downloads the webpages of the problems over HTTP.
+ * <p>
+ * All HttpPageSources share one {@link HttpClient}, that way connections get reused and
+ * with HTTP/2 all requests are multiplexed over a single connection. Requests are sent
+ * asynchronously, so the amount of requests in flight isn't limited by threads. Failed
+ * requests (timeouts, connection errors, "429 Too Many Requests" and 5xx responses) are
+ * retried with exponential backoff. Cancelling a returned future cancels the request and
+ * its retries.
+ * <p>
+ * The url prefix can be changed, that way the generator can also be pointed at a local
+ * stand-in server (e.g. "http://localhost:8080/problem=").
+ */
+public final class HttpPageSource implements PageSource {
+
+    /**
+     * Need to use https because the webpage sends a "moved temporarily" response when
+     * using http only
+     */
+    public static final String DEFAULT_URL_PREFIX = "https://projecteuler.net/problem=";
+
+    /** timeout in milliseconds for establishing a connection */
+    private static final int CONNECT_TIMEOUT = EulerSourceGenerator.getSystemProperty("de.nxg.eusocog.connectTimeout", 10_000);
+    /** timeout in milliseconds for receiving the response */
+    private static final int READ_TIMEOUT = EulerSourceGenerator.getSystemProperty("de.nxg.eusocog.readTimeout", 30_000);
+    /** how often a failed request is retried */
+    private static final int MAX_RETRIES = EulerSourceGenerator.getSystemProperty("de.nxg.eusocog.maxRetries", 4);
+    /** delay in milliseconds before the first retry, doubled for every further retry */
+    private static final int RETRY_DELAY = EulerSourceGenerator.getSystemProperty("de.nxg.eusocog.retryDelay", 500);
+    private static final long MAX_RETRY_DELAY = 30_000;
+
+    private static final HttpClient CLIENT = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_2)
+            .followRedirects(HttpClient.Redirect.NORMAL)
+            .connectTimeout(Duration.ofMillis(CONNECT_TIMEOUT))
+            .build();
+
+    private final String urlPrefix;
+    private volatile ConcurrencyLimiter limiter;
+
+    /**
+     * Creates a new HttpPageSource for <a href="https://projecteuler.net">projecteuler.net</a>
+     */
+    public HttpPageSource() {
+        this(DEFAULT_URL_PREFIX);
+    }
+
+    /**
+     * Creates a new HttpPageSource
+     *
+     * @param urlPrefix
+     *            the problemNo gets appended to this prefix to get the url of a problem
+     */
+    public HttpPageSource(String urlPrefix) {
+        if (urlPrefix == null) {
+            throw new NullPointerException("urlPrefix mustn't be null");
+        }
+        this.urlPrefix = urlPrefix;
+    }
+
+    @Override
+    public ProblemPage getPage(int problemNo) throws IOException {
+        return Futures.join(getPageAsync(problemNo, null));
+    }
+
+    /**
+     * Sends the request asynchronously, the executor isn't needed.
+     */
+    @Override
+    public CompletableFuture<ProblemPage> getPageAsync(int problemNo, Executor executor) {
+        CompletableFuture<Response> response = getAsync(problemNo, null, null);
+        return Futures.cancelUpstream(response, response.thenApply(
+                r -> new ProblemPage(problemNo, r.content, ProblemPage.Origin.NETWORK, r.transferredBytes)));
+    }
+
+    /**
+     * Downloads the file relative to the url prefix (e.g. "https://projecteuler.net/" for
+     * the default prefix), the executor isn't needed.
+     */
+    @Override
+    public CompletableFuture<byte[]> getResourceAsync(String path, Executor executor) {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(getResourceUrl(path)))
+                .timeout(Duration.ofMillis(READ_TIMEOUT))
+                .header("Accept-Encoding", "gzip, deflate")
+                .build();
+        CompletableFuture<HttpResponse<byte[]>> sent = send(path, request);
+        return Futures.cancelUpstream(sent, sent.thenApply(httpResponse -> {
+            try {
+                if (httpResponse.statusCode() >= 400) {
+                    throw new IOException("Server returned HTTP response code " + httpResponse.statusCode()
+                            + " for URL: " + httpResponse.uri());
+                }
+                return decode(httpResponse.body(), httpResponse.headers().firstValue("Content-Encoding").orElse(""));
+            } catch (IOException e) {
+                throw new CompletionException(e);
+            }
+        }));
+    }
+
+    /**
+     * Every attempt (also the retried ones) gets reported, a "429 Too Many Requests" or
+     * "503 Service Unavailable" response and a timeout as throttled.
+     */
+    @Override
+    public void setConcurrencyLimiter(ConcurrencyLimiter limiter) {
+        this.limiter = limiter;
+    }
+
+    /**
+     * @return the url of the file linked from a problem, e.g. "project/images/p015.png"
+     */
+    public String getResourceUrl(String path) {
+        return urlPrefix.substring(0, urlPrefix.lastIndexOf('/') + 1) + path;
+    }
+
+    /**
+     * @return the url of the webpage of the problem
+     */
+    public String getUrl(int problemNo) {
+        return urlPrefix + problemNo;
+    }
+
+    /**
+     * Sends a (conditional) GET request for the webpage of the problem and waits for the
+     * response.
+     *
+     * @see #getAsync(int, String, String)
+     */
+    public Response get(int problemNo, String etag, String lastModified) throws IOException {
+        return Futures.join(getAsync(problemNo, etag, lastModified));
+    }
+
+    /**
+     * Sends a (conditional) GET request for the webpage of the problem.
+     *
+     * @param etag
+     *            sent as "If-None-Match" header if not null
+     * @param lastModified
+     *            sent as "If-Modified-Since" header if not null
+     * @return a future completing with the {@link Response} (the content is null if the
+     *         server answered with "304 Not Modified"), or exceptionally with an
+     *         {@link IOException} if the request still failed after all retries or the
+     *         server answered with an error
+     */
+    public CompletableFuture<Response> getAsync(int problemNo, String etag, String lastModified) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(getUrl(problemNo)))
+                .timeout(Duration.ofMillis(READ_TIMEOUT))
+                .header("Accept-Encoding", "gzip, deflate");
+        if (etag != null) {
+            builder.header("If-None-Match", etag);
+        }
+        if (lastModified != null) {
+            builder.header("If-Modified-Since", lastModified);
+        }
+        CompletableFuture<HttpResponse<byte[]>> sent = send("problem " + problemNo, builder.build());
+        return Futures.cancelUpstream(sent, sent.thenApply(httpResponse -> {
+            try {
+                return toResponse(httpResponse);
+            } catch (IOException e) {
+                throw new CompletionException(e);
+            }
+        }));
+    }
+
+    /**
+     * Sends the request, retrying it until the server answers with a response that isn't
+     * retryable. Cancelling the returned future cancels the request in flight (which
+     * aborts the exchange on Java 16+) and stops further retries.
+     *
+     * @param what
+     *            what is requested, for the retry messages
+     */
+    private CompletableFuture<HttpResponse<byte[]>> send(String what, HttpRequest request) {
+        CompletableFuture<HttpResponse<byte[]>> result = new CompletableFuture<>();
+        send(what, request, 0, result);
+        return result;
+    }
+
+    private void send(String what, HttpRequest request, int retry, CompletableFuture<HttpResponse<byte[]>> result) {
+        if (result.isDone()) {
+            // cancelled while waiting for the retry
+            return;
+        }
+        long sent = System.nanoTime();
+        // the body handler gets applied as soon as the headers arrived
+        AtomicLong received = new AtomicLong();
+        CompletableFuture<HttpResponse<byte[]>> attempt = CLIENT.sendAsync(request, responseInfo -> {
+            received.set(System.nanoTime());
+            return HttpResponse.BodyHandlers.ofByteArray().apply(responseInfo);
+        });
+        Futures.cancelUpstream(attempt, result);
+        attempt.whenComplete((httpResponse, error) -> {
+            if (result.isCancelled()) {
+                // neither reported nor retried
+                return;
+            }
+            report(sent, received.get(), httpResponse, error);
+            if (error == null && !isRetryable(httpResponse.statusCode())) {
+                result.complete(httpResponse);
+                return;
+            }
+
+            String reason = error == null
+                    ? "HTTP response code " + httpResponse.statusCode()
+                    : String.valueOf(Futures.unwrap(error));
+            if (retry >= MAX_RETRIES) {
+                result.completeExceptionally(new IOException("Giving up on " + request.uri() + " after "
+                        + (retry + 1) + " attempts, last error: " + reason));
+                return;
+            }
+            long delay = getRetryDelay(retry, httpResponse);
+            System.out.println("Retrying " + what + " in " + delay + " ms (" + reason + ")");
+            CompletableFuture.delayedExecutor(delay, TimeUnit.MILLISECONDS)
+                    .execute(() -> send(what, request, retry + 1, result));
+        });
+    }
+
+    /**
+     * Every attempt is reported to the limiter, not just the last one of a request. The
+     * latency of a response is measured until its headers arrived, downloading a big page
+     * isn't load on the server.
+     */
+    private void report(long sent, long received, HttpResponse<?> httpResponse, Throwable error) {
+        ConcurrencyLimiter limiter = this.limiter;
+        if (limiter == null) {
+            return;
+        }
+        if (error == null) {
+            int statusCode = httpResponse.statusCode();
+            if (statusCode == 429 || statusCode == HttpURLConnection.HTTP_UNAVAILABLE) {
+                limiter.onThrottled(sent, received);
+            } else {
+                limiter.onSuccess(sent, received);
+            }
+        } else if (Futures.unwrap(error) instanceof HttpTimeoutException) {
+            limiter.onThrottled(sent, System.nanoTime());
+        }
+        // other errors (e.g. no connection at all) say nothing about the load of the server
+    }
+
+    private static boolean isRetryable(int statusCode) {
+        return statusCode == 429 || statusCode >= 500;
+    }
+
+    /**
+     * Exponential backoff with jitter, a "Retry-After" header (in seconds) is honored
+     */
+    private static long getRetryDelay(int retry, HttpResponse<?> httpResponse) {
+        long delay = Math.min(MAX_RETRY_DELAY, (long) RETRY_DELAY << Math.min(retry, 16));
+        delay = delay / 2 + ThreadLocalRandom.current().nextLong(delay / 2 + 1);
+        if (httpResponse != null) {
+            String retryAfter = httpResponse.headers().firstValue("Retry-After").orElse(null);
+            if (retryAfter != null) {
+                try {
+                    delay = Math.max(delay, Math.min(MAX_RETRY_DELAY, Long.parseLong(retryAfter.trim()) * 1000));
+                } catch (NumberFormatException e) {
+                    // a http-date, just use the backoff
+                }
+            }
+        }
+        return delay;
+    }
+
+    private static Response toResponse(HttpResponse<byte[]> httpResponse) throws IOException {
+        int statusCode = httpResponse.statusCode();
+        HttpHeaders headers = httpResponse.headers();
+        String etag = headers.firstValue("ETag").orElse(null);
+        String lastModified = headers.firstValue("Last-Modified").orElse(null);
+        if (statusCode == HttpURLConnection.HTTP_NOT_MODIFIED) {
+            return new Response(statusCode, null, etag, lastModified, httpResponse.body().length);
+        }
+        if (statusCode >= 400) {
+            throw new IOException("Server returned HTTP response code " + statusCode + " for URL: "
+                    + httpResponse.uri());
+        }
+
+        byte[] body = decode(httpResponse.body(), headers.firstValue("Content-Encoding").orElse(""));
+        Charset charset = getCharset(headers.firstValue("Content-Type").orElse(null));
+        String content = new String(body, charset).replace("\r\n", "\n");
+        return new Response(statusCode, content, etag, lastModified, httpResponse.body().length);
+    }
+
+    private static byte[] decode(byte[] body, String contentEncoding) throws IOException {
+        InputStream in;
+        switch (contentEncoding.trim().toLowerCase()) {
+        case "gzip":
+        case "x-gzip":
+            in = new GZIPInputStream(new ByteArrayInputStream(body));
+            break;
+        case "deflate":
+            in = new InflaterInputStream(new ByteArrayInputStream(body));
+            break;
+        default:
+            return body;
+        }
+        try (InputStream decoded = in) {
+            return decoded.readAllBytes();
+        }
+    }
+
+    private static Charset getCharset(String contentType) {
+        if (contentType != null) {
+            for (String parameter : contentType.split(";")) {
+                parameter = parameter.trim();
+                if (parameter.regionMatches(true, 0, "charset=", 0, 8)) {
+                    try {
+                        return Charset.forName(parameter.substring(8).replace("\"", ""));
+                    } catch (IllegalArgumentException e) {
+                        break;
+                    }
+                }
+            }
+        }
+        return StandardCharsets.UTF_8;
+    }
+
+    // #########################################################################
+    // ############################ INNER CLASSES ##############################
+    // #########################################################################
+
+    public static final class Response {
+
+        /** The HTTP status code */
+        public final int statusCode;
+        /** The webpage, null if the server answered with "304 Not Modified" */
+        public final String content;
+        /** The "ETag" header, may be null */
+        public final String etag;
+        /** The "Last-Modified" header, may be null */
+        public final String lastModified;
+        /** The size of the (possibly compressed) body as received */
+        public final long transferredBytes;
+
+        protected Response(int statusCode, String content, String etag, String lastModified,
+                long transferredBytes) {
+            this.statusCode = statusCode;
+            this.content = content;
+            this.etag = etag;
+            this.lastModified = lastModified;
+            this.transferredBytes = transferredBytes;
+        }
+
+    }
+}
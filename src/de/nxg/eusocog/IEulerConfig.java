@@ -1,5 +1,8 @@
 package de.nxg.eusocog;
 
+import java.nio.file.*;
+import java.time.*;
+import java.util.*;
 import java.util.concurrent.*;
 
 /**
@@ -9,7 +12,8 @@ import java.util.concurrent.*;
 public interface IEulerConfig {
 
     /**
-     * @return if the the solved String should be copied into Clipboard
+     * @return if the the solved String should be copied into Clipboard (by the default
+     *         {@link #getResultSinks()})
      */
     public boolean shouldCopyToClipboard();
 
@@ -18,4 +22,132 @@ public interface IEulerConfig {
      */
     public TimeUnit getFinishTimeUnit();
 
+    /**
+     * @return if {@link EulerProblem#start(Class, IEulerConfig)} should benchmark the
+     *         problem instead of solving it once: {@link EulerProblem#solve()} is called
+     *         on a fresh instance for every warmup and measured iteration and the
+     *         statistics of the measured iterations are printed. Defaults to false.
+     */
+    public default boolean isBenchmark() {
+        return false;
+    }
+
+    /**
+     * @return the number of iterations run before measuring in benchmark mode, they give
+     *         the JIT the time to compile the solution. Defaults to 5.
+     */
+    public default int getWarmupIterations() {
+        return 5;
+    }
+
+    /**
+     * @return the number of measured iterations in benchmark mode. Defaults to 10.
+     */
+    public default int getMeasurementIterations() {
+        return 10;
+    }
+
+    /**
+     * @return if the CPU time of the solving thread should be reported next to the wall
+     *         time. Defaults to true.
+     */
+    public default boolean shouldMeasureCpuTime() {
+        return true;
+    }
+
+    /**
+     * @return if the bytes allocated by the solving thread should be reported next to
+     *         the wall time (needs a JVM that supports it, like HotSpot). Defaults to
+     *         true.
+     */
+    public default boolean shouldMeasureAllocations() {
+        return true;
+    }
+
+    /**
+     * @return if the number and duration of the garbage collections during solving
+     *         should be reported next to the wall time. These are counted for the whole
+     *         JVM, not just the solving thread. Defaults to true.
+     */
+    public default boolean shouldMeasureGarbageCollection() {
+        return true;
+    }
+
+    /**
+     * @return how often the progress published with {@link EulerProblem#progress(long)}
+     *         is printed in milliseconds, 0 to never print it. Defaults to 1000.
+     */
+    public default long getProgressIntervalMillis() {
+        return 1000;
+    }
+
+    /**
+     * @return how long solving a problem may take, null to never stop it. When the budget
+     *         is exceeded {@link EulerProblem#isCancelled()} becomes true and the solving
+     *         thread gets interrupted, the problem is reported as timed out with the last
+     *         published progress. Defaults to null, the {@link EulerBatchRunner} uses one
+     *         minute then.
+     */
+    public default Duration getTimeBudget() {
+        return null;
+    }
+
+    /**
+     * @return how many threads the parallel methods of {@link EulerProblem} (like
+     *         {@link EulerProblem#parallelSum(long, long, ParallelRange.LongChunk)}) use.
+     *         Defaults to the number of processors.
+     */
+    public default int getParallelism() {
+        return Runtime.getRuntime().availableProcessors();
+    }
+
+    /**
+     * @return the file every run gets appended to and compared with (see
+     *         {@link SolveHistory}), null to keep no history. Defaults to
+     *         ".eusocog-history" in the working directory.
+     */
+    public default Path getHistoryFile() {
+        return Paths.get(".eusocog-history");
+    }
+
+    /**
+     * @return where {@link EulerProblem#start(Class, IEulerConfig)} reports the result,
+     *         called once per start. Defaults to the
+     *         {@link ResultSink#history(Path, TimeUnit, double)} of
+     *         {@link #getHistoryFile()}, {@link ResultSink#stdout()} and, if
+     *         {@link #shouldCopyToClipboard()}, the {@link ResultSink#clipboard()}.
+     */
+    public default List<ResultSink> getResultSinks() {
+        return ResultSinks.getDefaultSinks(this);
+    }
+
+    /**
+     * @return the folder the {@link EulerSourceGenerator} mirrored the images and data
+     *         files of the problems into, read by {@link EulerProblem#dataFile(String)}.
+     *         Defaults to null, the generated EulerConfig returns the folder it was
+     *         generated with.
+     */
+    public default Path getResourceFolder() {
+        return null;
+    }
+
+    /**
+     * @return the file a Java Flight Recorder recording of
+     *         {@link EulerProblem#start(Class, IEulerConfig)} is written to, null to not
+     *         record. The recording uses the "profile" settings and contains the events of
+     *         {@link EulerProblem} (solve spans, time() checkpoints and the progress),
+     *         open it with JDK Mission Control. Defaults to null.
+     */
+    public default Path getFlightRecordingFile() {
+        return null;
+    }
+
+    /**
+     * @return a run slower than its baseline times this factor is flagged, 0 to never
+     *         flag slow runs. Defaults to 1.5.
+     */
+    public default double getSlowdownThreshold() {
+        return 1.5;
+    }
+
 }
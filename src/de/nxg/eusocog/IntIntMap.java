@@ -0,0 +1,236 @@
+package de.nxg.eusocog;
+
+import java.util.*;
+import java.util.function.*;
+
+/**
+ * Hash map from int to int that doesn't box, for memoizing in solvers instead of a
+ * <code>HashMap&lt;Integer, Integer&gt;</code>.
+ * <p>
+ * Keys and values are stored in two arrays (open addressing with linear probing), the
+ * table is at most half full. Not thread-safe.
+ */
+public final class IntIntMap {
+
+    /** marks an empty slot, the key 0 itself is stored outside of the table */
+    private static final int FREE = 0;
+
+    private int[] keys;
+    private int[] values;
+    private int mask;
+    private int size;
+    private boolean hasFreeKey;
+    private int freeKeyValue;
+
+    public IntIntMap() {
+        this(16);
+    }
+
+    /**
+     * @param expectedSize
+     *            the map doesn't need to grow until it contains that many entries, at
+     *            most 2^29 (the largest table that is at most half full then)
+     */
+    public IntIntMap(int expectedSize) {
+        if (expectedSize < 0) {
+            throw new IllegalArgumentException("expectedSize mustn't be negative: " + expectedSize);
+        }
+        if (expectedSize > 1 << 29) {
+            throw new IllegalArgumentException("expectedSize must be at most 2^29: " + expectedSize);
+        }
+        allocate(Math.max(4, Integer.highestOneBit(Math.max(1, expectedSize) * 2 - 1) << 1));
+    }
+
+    public int size() {
+        return size + (hasFreeKey ? 1 : 0);
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    public boolean containsKey(int key) {
+        if (key == FREE) {
+            return hasFreeKey;
+        }
+        return keys[find(key)] == key;
+    }
+
+    /**
+     * @return the value of the key, defaultValue if the map doesn't contain the key
+     */
+    public int get(int key, int defaultValue) {
+        if (key == FREE) {
+            return hasFreeKey ? freeKeyValue : defaultValue;
+        }
+        int slot = find(key);
+        return keys[slot] == key ? values[slot] : defaultValue;
+    }
+
+    /**
+     * @return the previous value of the key, defaultValue if the map didn't contain it
+     */
+    public int put(int key, int value, int defaultValue) {
+        if (key == FREE) {
+            int previous = hasFreeKey ? freeKeyValue : defaultValue;
+            hasFreeKey = true;
+            freeKeyValue = value;
+            return previous;
+        }
+        int slot = find(key);
+        if (keys[slot] == key) {
+            int previous = values[slot];
+            values[slot] = value;
+            return previous;
+        }
+        insert(slot, key, value);
+        return defaultValue;
+    }
+
+    public void put(int key, int value) {
+        put(key, value, 0);
+    }
+
+    /**
+     * Adds the delta to the value of the key, a missing key counts as 0
+     *
+     * @return the new value
+     */
+    public int add(int key, int delta) {
+        if (key == FREE) {
+            freeKeyValue = (hasFreeKey ? freeKeyValue : 0) + delta;
+            hasFreeKey = true;
+            return freeKeyValue;
+        }
+        int slot = find(key);
+        if (keys[slot] == key) {
+            return values[slot] += delta;
+        }
+        insert(slot, key, delta);
+        return delta;
+    }
+
+    /**
+     * @return the value of the key, computed and put into the map if it doesn't contain
+     *         the key. The function may use the map itself (e.g. for recursion).
+     */
+    public int computeIfAbsent(int key, IntUnaryOperator function) {
+        if (key == FREE ? hasFreeKey : keys[find(key)] == key) {
+            return get(key, 0);
+        }
+        int value = function.applyAsInt(key);
+        // the function may have changed the table
+        put(key, value);
+        return value;
+    }
+
+    /**
+     * @return the removed value, defaultValue if the map didn't contain the key
+     */
+    public int remove(int key, int defaultValue) {
+        if (key == FREE) {
+            int previous = hasFreeKey ? freeKeyValue : defaultValue;
+            hasFreeKey = false;
+            return previous;
+        }
+        int slot = find(key);
+        if (keys[slot] != key) {
+            return defaultValue;
+        }
+        int previous = values[slot];
+        // backward shift, the following entries of the probe sequence fill the gap
+        int gap = slot;
+        int next = (gap + 1) & mask;
+        while (keys[next] != FREE) {
+            int home = hash(keys[next]);
+            if (((next - home) & mask) >= ((next - gap) & mask)) {
+                keys[gap] = keys[next];
+                values[gap] = values[next];
+                gap = next;
+            }
+            next = (next + 1) & mask;
+        }
+        keys[gap] = FREE;
+        size--;
+        return previous;
+    }
+
+    public void clear() {
+        Arrays.fill(keys, FREE);
+        size = 0;
+        hasFreeKey = false;
+    }
+
+    /**
+     * Calls the consumer for every entry, in no particular order
+     */
+    public void forEach(IntIntConsumer consumer) {
+        if (hasFreeKey) {
+            consumer.accept(FREE, freeKeyValue);
+        }
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != FREE) {
+                consumer.accept(keys[i], values[i]);
+            }
+        }
+    }
+
+    /**
+     * @return the bytes used by the table
+     */
+    public long getMemoryBytes() {
+        return 2L * keys.length * Integer.BYTES;
+    }
+
+    /** Consumer of an entry */
+    @FunctionalInterface
+    public interface IntIntConsumer {
+        void accept(int key, int value);
+    }
+
+    private int hash(int key) {
+        int h = key * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & mask;
+    }
+
+    /**
+     * @return the slot of the key or the free slot where it beints
+     */
+    private int find(int key) {
+        int slot = hash(key);
+        while (keys[slot] != key && keys[slot] != FREE) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void insert(int slot, int key, int value) {
+        keys[slot] = key;
+        values[slot] = value;
+        if (++size > keys.length / 2) {
+            rehash(keys.length * 2);
+        }
+    }
+
+    private void rehash(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalStateException("IntIntMap is too big");
+        }
+        int[] oldKeys = keys;
+        int[] oldValues = values;
+        allocate(capacity);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != FREE) {
+                int slot = find(oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        values = new int[capacity];
+        mask = capacity - 1;
+    }
+}
@@ -0,0 +1,188 @@
+package de.nxg.eusocog;
+
+import java.util.*;
+import java.util.stream.*;
+
+/**
+ * Growable array of ints that doesn't box, for collecting in solvers instead of a
+ * <code>List&lt;Integer&gt;</code>. Not thread-safe.
+ */
+public final class IntList {
+
+    private int[] elements;
+    private int size;
+
+    public IntList() {
+        this(16);
+    }
+
+    public IntList(int initialCapacity) {
+        if (initialCapacity < 0) {
+            throw new IllegalArgumentException("initialCapacity mustn't be negative: " + initialCapacity);
+        }
+        elements = new int[initialCapacity];
+    }
+
+    /**
+     * @return a list with a copy of the elements
+     */
+    public static IntList of(int... elements) {
+        IntList list = new IntList(elements.length);
+        list.addAll(elements);
+        return list;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void add(int element) {
+        if (size == elements.length) {
+            grow(size + 1);
+        }
+        elements[size++] = element;
+    }
+
+    public void addAll(int... values) {
+        if (size + values.length > elements.length) {
+            grow(size + values.length);
+        }
+        System.arraycopy(values, 0, elements, size, values.length);
+        size += values.length;
+    }
+
+    public int get(int index) {
+        checkIndex(index);
+        return elements[index];
+    }
+
+    /**
+     * @return the previous element
+     */
+    public int set(int index, int element) {
+        checkIndex(index);
+        int previous = elements[index];
+        elements[index] = element;
+        return previous;
+    }
+
+    /**
+     * @return the removed last element
+     */
+    public int removeLast() {
+        if (size == 0) {
+            throw new NoSuchElementException();
+        }
+        return elements[--size];
+    }
+
+    public boolean contains(int element) {
+        return indexOf(element) != -1;
+    }
+
+    /**
+     * @return the index of the first occurrence of the element, -1 if there is none
+     */
+    public int indexOf(int element) {
+        for (int i = 0; i < size; i++) {
+            if (elements[i] == element) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return the index of the element in the (ascending sorted) list, see
+     *         {@link Arrays#binarySearch(int[], int, int, int)}
+     */
+    public int binarySearch(int element) {
+        return Arrays.binarySearch(elements, 0, size, element);
+    }
+
+    public void sort() {
+        Arrays.sort(elements, 0, size);
+    }
+
+    /**
+     * Removes all elements, keeps the capacity
+     */
+    public void clear() {
+        size = 0;
+    }
+
+    public long sum() {
+        long sum = 0;
+        for (int i = 0; i < size; i++) {
+            sum += elements[i];
+        }
+        return sum;
+    }
+
+    public int[] toArray() {
+        return Arrays.copyOf(elements, size);
+    }
+
+    public IntStream stream() {
+        return Arrays.stream(elements, 0, size);
+    }
+
+    /**
+     * @return the bytes used by the backing array
+     */
+    public long getMemoryBytes() {
+        return (long) elements.length * Integer.BYTES;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof IntList)) {
+            return false;
+        }
+        IntList other = (IntList) obj;
+        return size == other.size && Arrays.equals(elements, 0, size, other.elements, 0, size);
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = 1;
+        for (int i = 0; i < size; i++) {
+            hash = 31 * hash + elements[i];
+        }
+        return hash;
+    }
+
+    /**
+     * @return like {@link List#toString()}, e.g. "[2, 3, 5]"
+     */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder(size * 4 + 2);
+        sb.append('[');
+        for (int i = 0; i < size; i++) {
+            sb.append(i == 0 ? "" : ", ").append(elements[i]);
+        }
+        return sb.append(']').toString();
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+    }
+
+    private void grow(int minCapacity) {
+        int capacity = Math.max(minCapacity, elements.length + (elements.length >> 1) + 1);
+        if (capacity < 0) {
+            capacity = Integer.MAX_VALUE - 8;
+        }
+        elements = Arrays.copyOf(elements, capacity);
+    }
+}
@@ -0,0 +1,188 @@
+package de.nxg.eusocog;
+
+import java.util.*;
+import java.util.stream.*;
+
+/**
+ * Growable array of longs that doesn't box, for collecting in solvers instead of a
+ * <code>List&lt;Long&gt;</code>. Not thread-safe.
+ */
+public final class LongList {
+
+    private long[] elements;
+    private int size;
+
+    public LongList() {
+        this(16);
+    }
+
+    public LongList(int initialCapacity) {
+        if (initialCapacity < 0) {
+            throw new IllegalArgumentException("initialCapacity mustn't be negative: " + initialCapacity);
+        }
+        elements = new long[initialCapacity];
+    }
+
+    /**
+     * @return a list with a copy of the elements
+     */
+    public static LongList of(long... elements) {
+        LongList list = new LongList(elements.length);
+        list.addAll(elements);
+        return list;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void add(long element) {
+        if (size == elements.length) {
+            grow(size + 1);
+        }
+        elements[size++] = element;
+    }
+
+    public void addAll(long... values) {
+        if (size + values.length > elements.length) {
+            grow(size + values.length);
+        }
+        System.arraycopy(values, 0, elements, size, values.length);
+        size += values.length;
+    }
+
+    public long get(int index) {
+        checkIndex(index);
+        return elements[index];
+    }
+
+    /**
+     * @return the previous element
+     */
+    public long set(int index, long element) {
+        checkIndex(index);
+        long previous = elements[index];
+        elements[index] = element;
+        return previous;
+    }
+
+    /**
+     * @return the removed last element
+     */
+    public long removeLast() {
+        if (size == 0) {
+            throw new NoSuchElementException();
+        }
+        return elements[--size];
+    }
+
+    public boolean contains(long element) {
+        return indexOf(element) != -1;
+    }
+
+    /**
+     * @return the index of the first occurrence of the element, -1 if there is none
+     */
+    public int indexOf(long element) {
+        for (int i = 0; i < size; i++) {
+            if (elements[i] == element) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return the index of the element in the (ascending sorted) list, see
+     *         {@link Arrays#binarySearch(long[], int, int, long)}
+     */
+    public int binarySearch(long element) {
+        return Arrays.binarySearch(elements, 0, size, element);
+    }
+
+    public void sort() {
+        Arrays.sort(elements, 0, size);
+    }
+
+    /**
+     * Removes all elements, keeps the capacity
+     */
+    public void clear() {
+        size = 0;
+    }
+
+    public long sum() {
+        long sum = 0;
+        for (int i = 0; i < size; i++) {
+            sum += elements[i];
+        }
+        return sum;
+    }
+
+    public long[] toArray() {
+        return Arrays.copyOf(elements, size);
+    }
+
+    public LongStream stream() {
+        return Arrays.stream(elements, 0, size);
+    }
+
+    /**
+     * @return the bytes used by the backing array
+     */
+    public long getMemoryBytes() {
+        return (long) elements.length * Long.BYTES;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof LongList)) {
+            return false;
+        }
+        LongList other = (LongList) obj;
+        return size == other.size && Arrays.equals(elements, 0, size, other.elements, 0, size);
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = 1;
+        for (int i = 0; i < size; i++) {
+            hash = 31 * hash + Long.hashCode(elements[i]);
+        }
+        return hash;
+    }
+
+    /**
+     * @return like {@link List#toString()}, e.g. "[2, 3, 5]"
+     */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder(size * 4 + 2);
+        sb.append('[');
+        for (int i = 0; i < size; i++) {
+            sb.append(i == 0 ? "" : ", ").append(elements[i]);
+        }
+        return sb.append(']').toString();
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+    }
+
+    private void grow(int minCapacity) {
+        int capacity = Math.max(minCapacity, elements.length + (elements.length >> 1) + 1);
+        if (capacity < 0) {
+            capacity = Integer.MAX_VALUE - 8;
+        }
+        elements = Arrays.copyOf(elements, capacity);
+    }
+}
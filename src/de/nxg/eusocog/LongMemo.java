@@ -0,0 +1,98 @@
+package de.nxg.eusocog;
+
+import java.util.function.*;
+
+/**
+ * Memo cache from long to long with a fixed capacity, for memoizing values that don't
+ * all fit into memory (e.g. Collatz chain lengths up to 10^9).
+ * <p>
+ * The cache is direct-mapped: every key has exactly one slot, a new entry evicts the one
+ * in its slot. That makes a lookup a single array access and never needs to grow. Hits,
+ * misses and evictions are counted and reported with the result of the problem if the
+ * cache was created with {@link EulerProblem#memo(String, int)}. Not thread-safe.
+ */
+public final class LongMemo {
+
+    private final String name;
+    private final long[] keys;
+    private final long[] values;
+    private final boolean[] used;
+    private final int mask;
+    private int size;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    /**
+     * @param name
+     *            shown in the statistics
+     * @param capacity
+     *            rounded up to the next power of two
+     */
+    public LongMemo(String name, int capacity) {
+        if (name == null) {
+            throw new NullPointerException("name mustn't be null");
+        }
+        if (capacity < 1 || capacity > 1 << 30) {
+            throw new IllegalArgumentException("capacity must be between 1 and 2^30: " + capacity);
+        }
+        // capacity * 2 would overflow for 2^30
+        int slots = capacity == 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+        this.name = name;
+        this.keys = new long[slots];
+        this.values = new long[slots];
+        this.used = new boolean[slots];
+        this.mask = slots - 1;
+    }
+
+    /**
+     * @return the cached value of the key, computed and cached if it isn't cached. The
+     *         function may use the cache itself (e.g. for recursion).
+     */
+    public long get(long key, LongUnaryOperator function) {
+        int slot = slot(key);
+        if (used[slot] && keys[slot] == key) {
+            hits++;
+            return values[slot];
+        }
+        misses++;
+        long value = function.applyAsLong(key);
+        put(key, value);
+        return value;
+    }
+
+    /**
+     * @return if the key is cached, without counting a hit or miss
+     */
+    public boolean contains(long key) {
+        int slot = slot(key);
+        return used[slot] && keys[slot] == key;
+    }
+
+    public void put(long key, long value) {
+        int slot = slot(key);
+        if (!used[slot]) {
+            used[slot] = true;
+            size++;
+        } else if (keys[slot] != key) {
+            evictions++;
+        }
+        keys[slot] = key;
+        values[slot] = value;
+    }
+
+    public MemoStatistics getStatistics() {
+        return new MemoStatistics(name, keys.length, size, hits, misses, evictions,
+                (long) keys.length * (2 * Long.BYTES + 1));
+    }
+
+    @Override
+    public String toString() {
+        return getStatistics().toString();
+    }
+
+    private int slot(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+}
@@ -0,0 +1,51 @@
+package de.nxg.eusocog;
+
+import java.util.*;
+
+/**
+ * How well a {@link LongMemo} worked, reported with the {@link SolveResult} of the problem
+ * that created it.
+ */
+public final class MemoStatistics {
+
+    /** The name of the memo */
+    public final String name;
+    /** How many entries fit into the memo */
+    public final int capacity;
+    /** How many entries are in the memo */
+    public final int size;
+    /** Lookups answered from the memo */
+    public final long hits;
+    /** Lookups that had to compute the value */
+    public final long misses;
+    /** Entries that were replaced by another key */
+    public final long evictions;
+    /** Bytes used by the memo */
+    public final long memoryBytes;
+
+    public MemoStatistics(String name, int capacity, int size, long hits, long misses, long evictions,
+            long memoryBytes) {
+        this.name = name;
+        this.capacity = capacity;
+        this.size = size;
+        this.hits = hits;
+        this.misses = misses;
+        this.evictions = evictions;
+        this.memoryBytes = memoryBytes;
+    }
+
+    /**
+     * @return the share of lookups answered from the memo, between 0 and 1
+     */
+    public double getHitRate() {
+        long lookups = hits + misses;
+        return lookups == 0 ? 0 : (double) hits / lookups;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.ROOT, "Memo %s: %,d hits, %,d misses (%.1f%% hit rate), %,d evictions, %,d of %,d entries, %,d KB",
+                name, hits, misses, getHitRate() * 100, evictions, size, capacity, memoryBytes / 1024);
+    }
+
+}
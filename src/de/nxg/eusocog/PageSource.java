@@ -0,0 +1,75 @@
+package de.nxg.eusocog;
+
+import java.io.*;
+import java.util.concurrent.*;
+
+/**
+ * Source for the webpages of the problems. The {@link EulerSourceGenerator} pulls every
+ * problem through its PageSource.
+ *
+ * @see HttpPageSource
+ * @see CachingPageSource
+ */
+public interface PageSource {
+
+    /**
+     * @param problemNo
+     *            the distinct number for one problem as found on the webpage.
+     * @return the webpage of the problem, never null
+     * @throws IOException
+     *             if the webpage couldn't be loaded
+     */
+    public ProblemPage getPage(int problemNo) throws IOException;
+
+    /**
+     * Loads the webpage asynchronously. The default implementation calls
+     * {@link #getPage(int)} on the executor, PageSources that don't block (e.g.
+     * {@link HttpPageSource}) should overwrite it.
+     *
+     * @param problemNo
+     *            the distinct number for one problem as found on the webpage.
+     * @param executor
+     *            executor for blocking work (e.g. disk access)
+     * @return a future completing with the webpage of the problem, or exceptionally with
+     *         an {@link IOException} if the webpage couldn't be loaded
+     */
+    public default CompletableFuture<ProblemPage> getPageAsync(int problemNo, Executor executor) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return getPage(problemNo);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }, executor);
+    }
+
+    /**
+     * Loads an image or data file linked from a problem. The default implementation
+     * fails, PageSources that can load them (e.g. {@link HttpPageSource}) should overwrite
+     * it.
+     *
+     * @param path
+     *            the path of the file on the website, e.g. "project/images/p015.png"
+     * @param executor
+     *            executor for blocking work (e.g. disk access)
+     * @return a future completing with the content of the file, or exceptionally with an
+     *         {@link IOException} if the file couldn't be loaded
+     */
+    public default CompletableFuture<byte[]> getResourceAsync(String path, Executor executor) {
+        return CompletableFuture.failedFuture(new IOException(getClass().getSimpleName() + " can't load " + path));
+    }
+
+    /**
+     * Sets the limiter the responses of the server are reported to, while
+     * {@link EulerSourceGenerator#generateAll()} runs it decides how many pages are
+     * requested at the same time. The default implementation ignores it, PageSources
+     * sending requests to a server (e.g. {@link HttpPageSource}) should overwrite it.
+     *
+     * @param limiter
+     *            null to not report anymore
+     */
+    public default void setConcurrencyLimiter(ConcurrencyLimiter limiter) {
+
+    }
+
+}
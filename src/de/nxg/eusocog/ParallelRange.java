@@ -0,0 +1,258 @@
+package de.nxg.eusocog;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.*;
+
+/**
+ * Splits a range of numbers into chunks that are solved in parallel on a
+ * {@link ForkJoinPool} and combines the results of the chunks.
+ * <p>
+ * The range is split in halves as long as other workers are idle (work stealing), so
+ * uneven work (e.g. primality tests that get slower with bigger numbers) still keeps all
+ * cores busy. A chunk is never smaller than an eighth of an even share per worker, that
+ * keeps the overhead of cheap chunk functions low. Ranges include <code>from</code> and
+ * exclude <code>to</code>, like {@link java.util.stream.LongStream#range(long, long)}.
+ *
+ * @see EulerProblem#parallelSum(long, long, LongChunk)
+ */
+public final class ParallelRange {
+
+    /** A chunk function with a primitive result, doesn't box */
+    @FunctionalInterface
+    public interface LongChunk {
+        /**
+         * @return the result for all numbers from <code>from</code> (inclusive) to
+         *         <code>to</code> (exclusive)
+         */
+        long apply(long from, long to);
+    }
+
+    /** A chunk function with an object result */
+    @FunctionalInterface
+    public interface Chunk<R> {
+        /**
+         * @return the result for all numbers from <code>from</code> (inclusive) to
+         *         <code>to</code> (exclusive)
+         */
+        R apply(long from, long to);
+    }
+
+    /** If a worker has more queued tasks than this, it stops splitting */
+    private static final int SURPLUS_TASKS = 3;
+    private static final ConcurrentMap<Integer, ForkJoinPool> POOLS = new ConcurrentHashMap<>();
+
+    private ParallelRange() {}
+
+    /**
+     * @return a shared pool with the given parallelism, the common pool if it has the same
+     *         parallelism
+     */
+    public static ForkJoinPool getPool(int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("parallelism must be at least 1: " + parallelism);
+        }
+        if (parallelism == ForkJoinPool.getCommonPoolParallelism()) {
+            return ForkJoinPool.commonPool();
+        }
+        return POOLS.computeIfAbsent(parallelism, ForkJoinPool::new);
+    }
+
+    /**
+     * Applies the chunk function to chunks of the range and combines the results
+     *
+     * @param identity
+     *            the result of an empty range, e.g. 0 for a sum
+     * @param combiner
+     *            combines the results of two neighbouring chunks, has to be associative
+     */
+    public static long reduce(ForkJoinPool pool, long from, long to, LongChunk chunk, long identity,
+            LongBinaryOperator combiner) {
+        checkArguments(pool, from, to, chunk, combiner);
+        if (from == to) {
+            return identity;
+        }
+        return pool.invoke(new LongTask(from, to, getMinChunkSize(pool, from, to), chunk, combiner));
+    }
+
+    /**
+     * Applies the chunk function to chunks of the range and combines the results in
+     * order of the range
+     *
+     * @param identity
+     *            the result of an empty range
+     * @param combiner
+     *            combines the results of two neighbouring chunks (lower range first), has
+     *            to be associative
+     */
+    public static <R> R reduce(ForkJoinPool pool, long from, long to, Chunk<R> chunk, R identity,
+            BinaryOperator<R> combiner) {
+        checkArguments(pool, from, to, chunk, combiner);
+        if (from == to) {
+            return identity;
+        }
+        return pool.invoke(new ObjectTask<>(from, to, getMinChunkSize(pool, from, to), chunk, combiner));
+    }
+
+    public static long sum(ForkJoinPool pool, long from, long to, LongChunk chunk) {
+        return reduce(pool, from, to, chunk, 0, Long::sum);
+    }
+
+    /**
+     * @return how many numbers of the range pass the test
+     */
+    public static long count(ForkJoinPool pool, long from, long to, LongPredicate test) {
+        return reduce(pool, from, to, (a, b) -> {
+            long count = 0;
+            for (long i = a; i < b; i++) {
+                if (test.test(i)) {
+                    count++;
+                }
+            }
+            return count;
+        }, 0, Long::sum);
+    }
+
+    /**
+     * @return the smallest value of the function over the range, Long.MAX_VALUE if the
+     *         range is empty
+     */
+    public static long min(ForkJoinPool pool, long from, long to, LongUnaryOperator function) {
+        return reduce(pool, from, to, (a, b) -> {
+            long min = Long.MAX_VALUE;
+            for (long i = a; i < b; i++) {
+                min = Math.min(min, function.applyAsLong(i));
+            }
+            return min;
+        }, Long.MAX_VALUE, Math::min);
+    }
+
+    /**
+     * @return the biggest value of the function over the range, Long.MIN_VALUE if the
+     *         range is empty
+     */
+    public static long max(ForkJoinPool pool, long from, long to, LongUnaryOperator function) {
+        return reduce(pool, from, to, (a, b) -> {
+            long max = Long.MIN_VALUE;
+            for (long i = a; i < b; i++) {
+                max = Math.max(max, function.applyAsLong(i));
+            }
+            return max;
+        }, Long.MIN_VALUE, Math::max);
+    }
+
+    /**
+     * @return the elements collected by the chunks, in order of the range
+     */
+    public static <T> List<T> collect(ForkJoinPool pool, long from, long to, Chunk<? extends Collection<T>> chunk) {
+        return reduce(pool, from, to, (a, b) -> {
+            List<T> list = new ArrayList<>();
+            list.addAll(chunk.apply(a, b));
+            return list;
+        }, new ArrayList<>(), (left, right) -> {
+            left.addAll(right);
+            return left;
+        });
+    }
+
+    private static void checkArguments(ForkJoinPool pool, long from, long to, Object chunk, Object combiner) {
+        if (pool == null) {
+            throw new NullPointerException("pool mustn't be null");
+        }
+        if (chunk == null) {
+            throw new NullPointerException("chunk mustn't be null");
+        }
+        if (combiner == null) {
+            throw new NullPointerException("combiner mustn't be null");
+        }
+        if (to < from) {
+            throw new IllegalArgumentException("to must not be smaller than from: " + from + ", " + to);
+        }
+    }
+
+    private static long getMinChunkSize(ForkJoinPool pool, long from, long to) {
+        // to - from may overflow for huge ranges, the unsigned value is still right
+        long size = to - from;
+        return Math.max(1, Long.divideUnsigned(size, (long) pool.getParallelism() * 8));
+    }
+
+    private static boolean shouldSplit(long from, long to, long minChunkSize) {
+        return Long.compareUnsigned(to - from, 2 * minChunkSize) >= 0
+                && ForkJoinTask.getSurplusQueuedTaskCount() <= SURPLUS_TASKS;
+    }
+
+    private static long middle(long from, long to) {
+        return from + Long.divideUnsigned(to - from, 2);
+    }
+
+    // #########################################################################
+    // ############################ INNER CLASSES ##############################
+    // #########################################################################
+
+    private static final class LongTask extends RecursiveTask<Long> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final long from;
+        private final long to;
+        private final long minChunkSize;
+        private final LongChunk chunk;
+        private final LongBinaryOperator combiner;
+
+        LongTask(long from, long to, long minChunkSize, LongChunk chunk, LongBinaryOperator combiner) {
+            this.from = from;
+            this.to = to;
+            this.minChunkSize = minChunkSize;
+            this.chunk = chunk;
+            this.combiner = combiner;
+        }
+
+        @Override
+        protected Long compute() {
+            return computeLong();
+        }
+
+        private long computeLong() {
+            if (!shouldSplit(from, to, minChunkSize)) {
+                return chunk.apply(from, to);
+            }
+            long middle = middle(from, to);
+            LongTask right = new LongTask(middle, to, minChunkSize, chunk, combiner);
+            right.fork();
+            long left = new LongTask(from, middle, minChunkSize, chunk, combiner).computeLong();
+            // joins the right half, or runs it here if nobody stole it
+            return combiner.applyAsLong(left, right.join());
+        }
+    }
+
+    private static final class ObjectTask<R> extends RecursiveTask<R> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final long from;
+        private final long to;
+        private final long minChunkSize;
+        private final Chunk<R> chunk;
+        private final BinaryOperator<R> combiner;
+
+        ObjectTask(long from, long to, long minChunkSize, Chunk<R> chunk, BinaryOperator<R> combiner) {
+            this.from = from;
+            this.to = to;
+            this.minChunkSize = minChunkSize;
+            this.chunk = chunk;
+            this.combiner = combiner;
+        }
+
+        @Override
+        protected R compute() {
+            if (!shouldSplit(from, to, minChunkSize)) {
+                return chunk.apply(from, to);
+            }
+            long middle = middle(from, to);
+            ObjectTask<R> right = new ObjectTask<>(middle, to, minChunkSize, chunk, combiner);
+            right.fork();
+            R left = new ObjectTask<>(from, middle, minChunkSize, chunk, combiner).compute();
+            return combiner.apply(left, right.join());
+        }
+    }
+}
@@ -0,0 +1,503 @@
+package de.nxg.eusocog;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.nio.charset.*;
+import java.nio.file.*;
+import java.util.*;
+import java.util.function.*;
+
+/**
+ * Sieve of Eratosthenes that grows on demand, meant to be shared by all problems of a
+ * JVM (see {@link #shared()}).
+ * <p>
+ * Only odd numbers are stored, one bit each (a set bit marks a composite number), so 128
+ * numbers fit into one long. The sieve is extended segment by segment, every segment fits
+ * into the L1/L2 cache while the multiples of the base primes get marked. Queries never
+ * lock: a query beyond the sieved limit extends the sieve (at least doubling it) first.
+ * <p>
+ * A sieve can be backed by a memory-mapped file (see {@link #open(Path)}), then the
+ * sieved numbers survive the JVM and a later run maps them instead of sieving again. The
+ * file holds the magic "EUSOSIEV", the sieved limit (little endian long) and the bits.
+ * Sieves are limited to {@link #MAX_LIMIT} (about 3.4e10) numbers.
+ */
+public final class PrimeSieve {
+
+    // #########################################################################
+    // ########################## STATIC FINAL FIELDS ##########################
+    // #########################################################################
+
+    /** System property with the file backing the {@link #shared()} sieve */
+    public static final String SHARED_FILE_PROPERTY = "de.nxg.eusocog.primeSieveFile";
+
+    private static final byte[] MAGIC = "EUSOSIEV".getBytes(StandardCharsets.US_ASCII);
+    private static final int HEADER_SIZE = 16;
+    /** numbers per long */
+    private static final int WORD_NUMBERS = 128;
+    /** a mapped buffer can't be bigger than Integer.MAX_VALUE bytes */
+    private static final int MAX_WORDS = (Integer.MAX_VALUE - HEADER_SIZE) / Long.BYTES;
+    /** The biggest limit a sieve can have */
+    public static final long MAX_LIMIT = (long) MAX_WORDS * WORD_NUMBERS;
+    /** 32 KB of bits, about 500000 numbers per segment */
+    private static final int SEGMENT_WORDS = 4096;
+    /** words per block of the prefix counts used by {@link #pi(long)} */
+    private static final int COUNT_BLOCK_WORDS = 1024;
+
+    // #########################################################################
+    // ############################# CLASS FIELDS ##############################
+    // #########################################################################
+
+    /** the file backing the sieve, null if it lives on the heap */
+    private final Path file;
+    private volatile State state;
+
+    /**
+     * Creates a new empty sieve on the heap
+     */
+    public PrimeSieve() {
+        this.file = null;
+        this.state = new State(LongBuffer.allocate(0), 0);
+    }
+
+    private PrimeSieve(Path file, State state) {
+        this.file = file;
+        this.state = state;
+    }
+
+    // #########################################################################
+    // ############################## PUBLIC API ###############################
+    // #########################################################################
+
+    /**
+     * @return the sieve shared by all problems of this JVM, backed by the file in the
+     *         system property {@value #SHARED_FILE_PROPERTY} if it is set
+     */
+    public static PrimeSieve shared() {
+        return SharedHolder.INSTANCE;
+    }
+
+    /**
+     * Maps the sieve stored in the file, creates the file if it doesn't exist yet.
+     * Extending the sieve extends the file.
+     */
+    public static PrimeSieve open(Path file) throws IOException {
+        if (file == null) {
+            throw new NullPointerException("file mustn't be null");
+        }
+        long limit = 0;
+        if (Files.exists(file)) {
+            limit = readLimit(file);
+        } else {
+            Path folder = file.toAbsolutePath().getParent();
+            Files.createDirectories(folder);
+            writeHeader(file, 0);
+        }
+        return new PrimeSieve(file, new State(map(file, toWords(limit)), limit));
+    }
+
+    /**
+     * Writes the sieve into the file, it can be mapped again with {@link #open(Path)}
+     */
+    public void save(Path targetFile) throws IOException {
+        State current = state;
+        Path target = targetFile.toAbsolutePath();
+        Files.createDirectories(target.getParent());
+        Path tempFile = target.resolveSibling("." + target.getFileName() + ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(tempFile, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                channel.write(createHeader(current.limit));
+                ByteBuffer buffer = ByteBuffer.allocate(SEGMENT_WORDS * Long.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+                int words = toWords(current.limit);
+                for (int word = 0; word < words; word += SEGMENT_WORDS) {
+                    int length = Math.min(SEGMENT_WORDS, words - word);
+                    buffer.clear();
+                    for (int i = 0; i < length; i++) {
+                        buffer.putLong(current.words.get(word + i));
+                    }
+                    buffer.flip();
+                    while (buffer.hasRemaining()) {
+                        channel.write(buffer);
+                    }
+                }
+            }
+            Files.move(tempFile, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+
+    /**
+     * @return all numbers below this are sieved
+     */
+    public long getLimit() {
+        return state.limit;
+    }
+
+    /**
+     * Sieves all numbers below the limit (rounded up to the next multiple of 128), does
+     * nothing if they are sieved allready
+     */
+    public void ensureLimit(long limit) {
+        if (limit > state.limit) {
+            extend(limit, limit);
+        }
+    }
+
+    public boolean isPrime(long n) {
+        if (n < 3) {
+            return n == 2;
+        }
+        if ((n & 1) == 0) {
+            return false;
+        }
+        return isOddPrime(getState(n + 1), n);
+    }
+
+    /**
+     * @return the smallest prime bigger than n
+     */
+    public long nextPrime(long n) {
+        if (n < 2) {
+            return 2;
+        }
+        // the first odd number bigger than n
+        long candidate = (n + 1) | 1;
+        while (true) {
+            State current = getState(candidate + 1);
+            int word = (int) (candidate / WORD_NUMBERS);
+            // clear the bits of the numbers below the candidate
+            long primes = ~current.words.get(word) & (-1L << ((candidate >>> 1) & 63));
+            int words = toWords(current.limit);
+            while (primes == 0 && ++word < words) {
+                primes = ~current.words.get(word);
+            }
+            if (primes != 0) {
+                return (long) word * WORD_NUMBERS + 2L * Long.numberOfTrailingZeros(primes) + 1;
+            }
+            candidate = current.limit + 1;
+        }
+    }
+
+    /**
+     * Calls the consumer for every prime from <code>from</code> (inclusive) to
+     * <code>to</code> (exclusive) in ascending order
+     */
+    public void forEachPrime(long from, long to, LongConsumer consumer) {
+        if (to <= from || to <= 2) {
+            return;
+        }
+        if (from <= 2) {
+            consumer.accept(2);
+            from = 3;
+        }
+        State current = getState(to);
+        long first = from | 1;
+        int lastWord = (int) ((to - 1) / WORD_NUMBERS);
+        for (int word = (int) (first / WORD_NUMBERS); word <= lastWord; word++) {
+            long primes = ~current.words.get(word);
+            if (word == first / WORD_NUMBERS) {
+                primes &= -1L << ((first >>> 1) & 63);
+            }
+            while (primes != 0) {
+                long prime = (long) word * WORD_NUMBERS + 2L * Long.numberOfTrailingZeros(primes) + 1;
+                if (prime >= to) {
+                    return;
+                }
+                consumer.accept(prime);
+                primes &= primes - 1;
+            }
+        }
+    }
+
+    /**
+     * @return the primes from <code>from</code> (inclusive) to <code>to</code>
+     *         (exclusive) in ascending order
+     */
+    public long[] primesInRange(long from, long to) {
+        long[][] primes = { new long[16] };
+        int[] size = { 0 };
+        forEachPrime(from, to, prime -> {
+            if (size[0] == primes[0].length) {
+                primes[0] = Arrays.copyOf(primes[0], primes[0].length * 2);
+            }
+            primes[0][size[0]++] = prime;
+        });
+        return Arrays.copyOf(primes[0], size[0]);
+    }
+
+    /**
+     * @return the number of primes smaller or equal to n
+     */
+    public long pi(long n) {
+        if (n < 2) {
+            return 0;
+        }
+        State current = getState(n + 1);
+        long[] counts = current.getCounts();
+        // 2 is the only even prime, the odd numbers up to n are counted
+        long count = 1;
+        n -= 1 - (n & 1);
+        int lastWord = (int) (n / WORD_NUMBERS);
+        int block = lastWord / COUNT_BLOCK_WORDS;
+        count += counts[block];
+        for (int word = block * COUNT_BLOCK_WORDS; word < lastWord; word++) {
+            count += Long.bitCount(~current.words.get(word));
+        }
+        // the bits of the numbers up to n in the last word
+        int bits = (int) ((n % WORD_NUMBERS) >>> 1) + 1;
+        long mask = bits == 64 ? -1L : (1L << bits) - 1;
+        count += Long.bitCount(~current.words.get(lastWord) & mask);
+        return count;
+    }
+
+    // #########################################################################
+    // ############################## PRIVATE API ##############################
+    // #########################################################################
+
+    private static boolean isOddPrime(State current, long n) {
+        return (current.words.get((int) (n / WORD_NUMBERS)) & (1L << ((n >>> 1) & 63))) == 0;
+    }
+
+    /**
+     * @return a state that contains all numbers below the limit
+     */
+    private State getState(long limit) {
+        State current = state;
+        if (limit <= current.limit) {
+            return current;
+        }
+        // grow at least by doubling, queries tend to walk upwards
+        return extend(limit, Math.max(limit, Math.min(MAX_LIMIT, current.limit * 2)));
+    }
+
+    private synchronized State extend(long neededLimit, long wantedLimit) {
+        State current = state;
+        if (neededLimit <= current.limit) {
+            return current;
+        }
+        if (neededLimit > MAX_LIMIT) {
+            throw new IllegalArgumentException("A PrimeSieve can't go beyond " + MAX_LIMIT + ": " + neededLimit);
+        }
+        int oldWords = toWords(current.limit);
+        int newWords = Math.max(oldWords + 1, toWords(Math.min(MAX_LIMIT, wantedLimit)));
+        long newLimit = (long) newWords * WORD_NUMBERS;
+
+        LongBuffer words;
+        try {
+            words = file != null ? map(file, newWords) : copy(current.words, oldWords, newWords);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Couldn't extend the prime sieve in " + file, e);
+        }
+        int[] basePrimes = getBasePrimes(newLimit);
+        long[] segment = new long[SEGMENT_WORDS];
+        for (int word = oldWords; word < newWords; word += SEGMENT_WORDS) {
+            int length = Math.min(SEGMENT_WORDS, newWords - word);
+            sieveSegment((long) word * WORD_NUMBERS, length, basePrimes, segment);
+            words.duplicate().position(word).put(segment, 0, length);
+        }
+
+        if (file != null) {
+            try {
+                writeHeader(file, newLimit);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Couldn't extend the prime sieve in " + file, e);
+            }
+        }
+        State extended = new State(words, newLimit);
+        extended.reuseCounts(current);
+        state = extended;
+        return extended;
+    }
+
+    /**
+     * Marks the composite odd numbers of the segment starting at lo (a multiple of 128)
+     */
+    private static void sieveSegment(long lo, int length, int[] basePrimes, long[] segment) {
+        Arrays.fill(segment, 0, length, 0L);
+        long hi = lo + (long) length * WORD_NUMBERS;
+        if (lo == 0) {
+            // 1 isn't prime
+            segment[0] |= 1L;
+        }
+        for (int prime : basePrimes) {
+            long p = prime;
+            if (p * p >= hi) {
+                break;
+            }
+            // the first odd multiple of p in the segment, but not below p * p
+            long start = Math.max(p * p, (lo + p - 1) / p * p);
+            if ((start & 1) == 0) {
+                start += p;
+            }
+            long step = 2 * p;
+            for (long m = start; m < hi; m += step) {
+                long bit = (m - lo) >>> 1;
+                segment[(int) (bit >>> 6)] |= 1L << bit;
+            }
+        }
+    }
+
+    /**
+     * @return the odd primes up to the square root of the limit, sieved the simple way
+     */
+    private static int[] getBasePrimes(long limit) {
+        int max = (int) Math.sqrt((double) limit) + 1;
+        boolean[] composite = new boolean[max + 1];
+        int[] primes = new int[max / 2 + 1];
+        int size = 0;
+        for (int i = 3; i <= max; i += 2) {
+            if (composite[i]) {
+                continue;
+            }
+            primes[size++] = i;
+            for (long m = (long) i * i; m <= max; m += 2 * i) {
+                composite[(int) m] = true;
+            }
+        }
+        return Arrays.copyOf(primes, size);
+    }
+
+    private static LongBuffer copy(LongBuffer words, int oldWords, int newWords) {
+        LongBuffer copy = LongBuffer.allocate(newWords);
+        copy.put(words.duplicate().position(0).limit(oldWords));
+        return copy;
+    }
+
+    private static int toWords(long limit) {
+        return (int) ((limit + WORD_NUMBERS - 1) / WORD_NUMBERS);
+    }
+
+    private static LongBuffer map(Path file, int words) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            // a READ_WRITE mapping beyond the end of the file extends it with zeros
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_WRITE, 0,
+                    HEADER_SIZE + (long) words * Long.BYTES);
+            mapped.position(HEADER_SIZE);
+            return mapped.slice().order(ByteOrder.LITTLE_ENDIAN).asLongBuffer();
+        }
+    }
+
+    private static long readLimit(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            while (header.hasRemaining() && channel.read(header) != -1) {
+                // read the whole header
+            }
+            byte[] magic = new byte[MAGIC.length];
+            header.flip();
+            if (header.remaining() < HEADER_SIZE) {
+                throw new IOException("Not a prime sieve file: " + file);
+            }
+            header.get(magic);
+            long limit = header.getLong();
+            if (!Arrays.equals(magic, MAGIC) || limit < 0 || limit > MAX_LIMIT || limit % WORD_NUMBERS != 0) {
+                throw new IOException("Not a prime sieve file: " + file);
+            }
+            if (channel.size() < HEADER_SIZE + (long) toWords(limit) * Long.BYTES) {
+                throw new IOException("Prime sieve file is truncated: " + file);
+            }
+            return limit;
+        }
+    }
+
+    /**
+     * The limit is written after the bits, a crash while extending leaves the old limit
+     */
+    private static void writeHeader(Path file, long limit) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            ByteBuffer header = createHeader(limit);
+            while (header.hasRemaining()) {
+                channel.write(header, header.position());
+            }
+            channel.force(false);
+        }
+    }
+
+    private static ByteBuffer createHeader(long limit) {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        header.put(MAGIC).putLong(limit);
+        header.flip();
+        return header;
+    }
+
+    // #########################################################################
+    // ############################ INNER CLASSES ##############################
+    // #########################################################################
+
+    /**
+     * The sieved bits and their limit, replaced as a whole when the sieve gets extended
+     */
+    private static final class State {
+
+        final LongBuffer words;
+        final long limit;
+        /** counts[b] = odd primes in the words before block b, built on the first pi() */
+        private volatile long[] counts;
+
+        State(LongBuffer words, long limit) {
+            this.words = words;
+            this.limit = limit;
+        }
+
+        long[] getCounts() {
+            long[] result = counts;
+            if (result == null) {
+                synchronized (this) {
+                    result = counts;
+                    if (result == null) {
+                        result = buildCounts(null);
+                        counts = result;
+                    }
+                }
+            }
+            return result;
+        }
+
+        /**
+         * Takes over the counts of the previous state, the words it counted didn't change
+         */
+        void reuseCounts(State previous) {
+            long[] previousCounts = previous.counts;
+            if (previousCounts != null) {
+                counts = buildCounts(previousCounts);
+            }
+        }
+
+        private long[] buildCounts(long[] previousCounts) {
+            long[] result = new long[toWords(limit) / COUNT_BLOCK_WORDS + 1];
+            int start = 0;
+            if (previousCounts != null) {
+                // only complete blocks of the previous words can be reused
+                start = Math.min(previousCounts.length, result.length) - 1;
+                System.arraycopy(previousCounts, 0, result, 0, start + 1);
+            }
+            long count = result[start];
+            for (int block = start; block < result.length - 1; block++) {
+                for (int word = block * COUNT_BLOCK_WORDS; word < (block + 1) * COUNT_BLOCK_WORDS; word++) {
+                    count += Long.bitCount(~words.get(word));
+                }
+                result[block + 1] = count;
+            }
+            return result;
+        }
+    }
+
+    private static final class SharedHolder {
+
+        static final PrimeSieve INSTANCE = create();
+
+        private static PrimeSieve create() {
+            String file = System.getProperty(SHARED_FILE_PROPERTY);
+            if (file != null && !file.isEmpty()) {
+                try {
+                    return open(Paths.get(file));
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            }
+            return new PrimeSieve();
+        }
+    }
+}
@@ -0,0 +1,325 @@
+package de.nxg.eusocog;
+
+import java.util.*;
+import java.util.function.*;
+
+/**
+ * Extracts the problem statement from the webpage of a problem and converts it into a
+ * Javadoc comment.
+ * <p>
+ * Works in a single pass over the characters of the webpage: searches the beginning of
+ * the problem, counts the nested divs to find its end, rewrites the links to images and
+ * data files and writes the Javadoc lines while scanning. Nothing but the Javadoc itself
+ * gets buffered.
+ */
+final class ProblemExtractor {
+
+    /* Search strings to identify website with a valid Problem on it */
+    static final String SEARCH_BEGIN = "<div class=\"problem_content\" role=\"problem\">";
+    private static final String DIV_BEGIN = "<div";
+    private static final String DIV_END = "</div";
+    private static final String IMG_BEGIN = "<img";
+    private static final String A_BEGIN = "<a";
+
+    /*
+     * Replace internal website links with absolute links (or the links to the mirrored
+     * files), that way all the images get correctly presented inside the IDE
+     */
+    private static final String[] RESOURCE_PATHS = { "project/images/", "project/resources/", "resources/" };
+    private static final String SITE_URL = "https://projecteuler.net/";
+
+    private static final String LINE_PREFIX = " * ";
+
+    private ProblemExtractor() {}
+
+    /**
+     * @param problemNo
+     *            the distinct number for one problem as found on the webpage.
+     * @param page
+     *            the whole webpage
+     * @return the problem as Javadoc comment (without trailing line break) or null if
+     *         the webpage contains no complete problem
+     */
+    static String toJavaDoc(int problemNo, String page) {
+        return toJavaDoc(problemNo, page, path -> null);
+    }
+
+    /**
+     * @param resourceLinks
+     *            gets the path of every image and data file on the website (e.g.
+     *            "project/images/p015.png") and returns the link written into the
+     *            Javadoc instead, null to link the file on the website
+     * @see #toJavaDoc(int, String)
+     */
+    static String toJavaDoc(int problemNo, String page, Function<String, String> resourceLinks) {
+        return toJavaDoc(problemNo, page, resourceLinks, null);
+    }
+
+    /**
+     * Extracts the Javadoc linking the images and data files on the website and collects
+     * them in the same pass, see {@link Extraction#relink(Function)} to link them
+     * somewhere else
+     *
+     * @return the extraction or null if the webpage contains no complete problem
+     * @see #toJavaDoc(int, String)
+     */
+    static Extraction extract(int problemNo, String page) {
+        Extraction extraction = new Extraction();
+        String javaDoc = toJavaDoc(problemNo, page, path -> null, extraction);
+        if (javaDoc == null) {
+            return null;
+        }
+        extraction.javaDoc = javaDoc;
+        return extraction;
+    }
+
+    /**
+     * @param extraction
+     *            collects the resources and the position of their links, may be null
+     */
+    private static String toJavaDoc(int problemNo, String page, Function<String, String> resourceLinks,
+            Extraction extraction) {
+        int begin = page.indexOf(SEARCH_BEGIN);
+        if (begin == -1) {
+            return null;
+        }
+
+        StringBuilder out = new StringBuilder(1024);
+        out.append("/**\n");
+        out.append(LINE_PREFIX).append(getHeading(problemNo)).append("\n");
+        out.append(LINE_PREFIX);
+        int contentStart = out.length();
+        // everything after the last non whitespace character gets cut off at the end
+        int contentEnd = contentStart;
+
+        int depth = 1;
+        int length = page.length();
+        int i = begin + SEARCH_BEGIN.length();
+        while (i < length) {
+            char c = page.charAt(i);
+            if (c == '<') {
+                int tagEnd = findTagEnd(page, i);
+                if (tagEnd != -1) {
+                    if (page.startsWith(DIV_BEGIN, i)) {
+                        depth++;
+                    } else if (page.startsWith(DIV_END, i)) {
+                        depth--;
+                        if (depth == 0) {
+                            out.setLength(contentEnd);
+                            out.append("\n */");
+                            return out.toString();
+                        }
+                    } else if (isLink(page, i) && appendLink(page, i, tagEnd, out, resourceLinks, extraction)) {
+                        contentEnd = out.length();
+                        i = tagEnd + 1;
+                        continue;
+                    }
+                }
+            }
+
+            if (c > ' ') {
+                // "*&#47;" would end the comment, javac reads a backslash followed by 'u' as
+                // the start of a unicode escape (even inside comments)
+                if (c == '*' && i + 1 < length && page.charAt(i + 1) == '/') {
+                    out.append("*&#47;");
+                    i++;
+                } else if (c == '\\' && i + 1 < length && page.charAt(i + 1) == 'u') {
+                    out.append("&#92;");
+                } else {
+                    out.append(c);
+                }
+                contentEnd = out.length();
+            } else if (contentEnd != contentStart) {
+                // whitespace before the first content is trimmed, '\r' gets dropped
+                if (c == '\n') {
+                    out.append('\n').append(LINE_PREFIX);
+                } else if (c != '\r') {
+                    out.append(c);
+                }
+            }
+            i++;
+        }
+        return null;
+    }
+
+    /**
+     * Searches the Javadoc of the problem inside the source of a generated class.
+     *
+     * @return the start and end index of the Javadoc (from "/**" up to and including the
+     *         closing " *&#47;" line) or null if the source doesn't contain it
+     */
+    static int[] findJavaDoc(String source, int problemNo) {
+        int heading = source.indexOf(getHeading(problemNo));
+        if (heading == -1) {
+            return null;
+        }
+        int start = source.lastIndexOf("/**", heading);
+        int end = source.indexOf("\n */", heading);
+        if (start == -1 || end == -1) {
+            return null;
+        }
+        return new int[] { start, end + 4 };
+    }
+
+    private static String getHeading(int problemNo) {
+        return "<a href=\"https://projecteuler.net/problem=" + problemNo + "\"><b>Problem " + problemNo
+                + "</b></a></br>";
+    }
+
+    /**
+     * @return the index of the '>' closing the tag starting at the index, or -1 if
+     *         another tag starts before
+     */
+    private static int findTagEnd(String page, int tagStart) {
+        for (int i = tagStart + 1; i < page.length(); i++) {
+            char c = page.charAt(i);
+            if (c == '>') {
+                return i;
+            } else if (c == '<') {
+                return -1;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return if an img or a tag starts at the index
+     */
+    private static boolean isLink(String page, int tagStart) {
+        if (page.startsWith(IMG_BEGIN, tagStart)) {
+            return true;
+        }
+        int next = tagStart + A_BEGIN.length();
+        return page.startsWith(A_BEGIN, tagStart) && next < page.length() && page.charAt(next) <= ' ';
+    }
+
+    /**
+     * Appends the img or a tag with the link returned by the resourceLinks or an absolute
+     * link if it references an internal image or data file.
+     *
+     * @return false if the tag doesn't reference an internal file and nothing got
+     *         appended
+     */
+    private static boolean appendLink(String page, int tagStart, int tagEnd, StringBuilder out,
+            Function<String, String> resourceLinks, Extraction extraction) {
+        boolean image = page.startsWith(IMG_BEGIN, tagStart);
+        String attribute = image ? "src=" : "href=";
+        int src = findAttribute(page, attribute, tagStart, tagEnd);
+        if (src == -1) {
+            return false;
+        }
+        int valueStart = src + attribute.length();
+        char quote = page.charAt(valueStart);
+        int valueEnd;
+        if (quote == '"' || quote == '\'') {
+            valueStart++;
+            valueEnd = indexOf(page, quote, valueStart, tagEnd);
+        } else {
+            valueEnd = valueStart;
+            while (valueEnd < tagEnd && page.charAt(valueEnd) > ' ') {
+                valueEnd++;
+            }
+        }
+        if (valueEnd == -1) {
+            return false;
+        }
+        if (page.startsWith("/", valueStart)) {
+            valueStart++;
+        }
+        if (!isResourcePath(page, valueStart)) {
+            return false;
+        }
+        String path = page.substring(valueStart, valueEnd);
+        String link = resourceLinks.apply(path);
+        out.append(image ? "<img src=" : "<a href=");
+        int linkStart = out.length();
+        out.append(link != null ? link : SITE_URL + path);
+        if (extraction != null) {
+            extraction.resources.add(path);
+            extraction.linkRanges.add(linkStart);
+            extraction.linkRanges.add(out.length());
+        }
+        out.append('>');
+        return true;
+    }
+
+    private static boolean isResourcePath(String page, int index) {
+        for (String resourcePath : RESOURCE_PATHS) {
+            if (page.startsWith(resourcePath, index)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Only searches inside the tag, never in the tags after it
+     *
+     * @return the index of the attribute (e.g. "src=") or -1 if the tag has none
+     */
+    private static int findAttribute(String page, String attribute, int tagStart, int tagEnd) {
+        for (int i = tagStart + 1; i + attribute.length() <= tagEnd; i++) {
+            if (page.charAt(i - 1) <= ' ' && page.regionMatches(true, i, attribute, 0, attribute.length())) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return the index of the char between from (inclusive) and to (exclusive) or -1
+     */
+    private static int indexOf(String page, char c, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (page.charAt(i) == c) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    // #########################################################################
+    // ############################ INNER CLASSES ##############################
+    // #########################################################################
+
+    /**
+     * The Javadoc of a problem and the images and data files it links, see
+     * {@link ProblemExtractor#extract(int, String)}
+     */
+    static final class Extraction {
+
+        /** The Javadoc linking the files on the website */
+        String javaDoc;
+        /**
+         * The paths of the linked images and data files on the website in order of
+         * appearance (a file linked twice is contained twice), e.g.
+         * "project/images/p015.png"
+         */
+        final List<String> resources = new ArrayList<>();
+        /** start and end index of the link of every resource in the Javadoc */
+        private final IntList linkRanges = new IntList();
+
+        private Extraction() {}
+
+        /**
+         * @param resourceLinks
+         *            gets the path of every image and data file on the website and returns
+         *            the link written into the Javadoc instead, null to keep the link to
+         *            the website
+         * @return the Javadoc with the replaced links
+         */
+        String relink(Function<String, String> resourceLinks) {
+            StringBuilder sb = new StringBuilder(javaDoc.length() + resources.size() * 64);
+            int copied = 0;
+            for (int i = 0; i < resources.size(); i++) {
+                String link = resourceLinks.apply(resources.get(i));
+                if (link != null) {
+                    sb.append(javaDoc, copied, linkRanges.get(2 * i)).append(link);
+                    copied = linkRanges.get(2 * i + 1);
+                }
+            }
+            return sb.append(javaDoc, copied, javaDoc.length()).toString();
+        }
+
+    }
+}
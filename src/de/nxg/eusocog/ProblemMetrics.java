@@ -0,0 +1,63 @@
+package de.nxg.eusocog;
+
+/**
+ * What happened to a single problem during a run of the {@link EulerSourceGenerator} and
+ * how long every stage took.
+ *
+ * @see GenerationListener#problemProcessed(ProblemMetrics)
+ */
+public final class ProblemMetrics {
+
+    /** What the generator did with a problem */
+    public enum Outcome {
+        /** the class got created */
+        CREATED,
+        /** the class or its Javadoc got rewritten */
+        UPDATED,
+        /** the class allready existed and didn't need any change */
+        UNCHANGED,
+        /** skipped without fetching it, the manifest says it was checked recently */
+        UP_TO_DATE,
+        /** the webpage contains no (accessible) problem */
+        NOT_ACCESSIBLE,
+        /** loading the webpage (after all retries), extracting or writing failed */
+        FAILED
+    }
+
+    /** The Problem the metrics belong to */
+    public final int problemNo;
+    /** What the generator did */
+    public final Outcome outcome;
+    /** Where the webpage came from, null if it wasn't fetched */
+    public final ProblemPage.Origin origin;
+    /** The amount of bytes received from the server */
+    public final long transferredBytes;
+    /** Time from requesting the webpage until it was there */
+    public final long fetchNanos;
+    /** Time needed for extracting the problem from the webpage */
+    public final long extractNanos;
+    /** Time needed for rendering the class */
+    public final long renderNanos;
+    /** Time needed for writing the class */
+    public final long writeNanos;
+
+    public ProblemMetrics(int problemNo, Outcome outcome, ProblemPage.Origin origin, long transferredBytes,
+            long fetchNanos, long extractNanos, long renderNanos, long writeNanos) {
+        this.problemNo = problemNo;
+        this.outcome = outcome;
+        this.origin = origin;
+        this.transferredBytes = transferredBytes;
+        this.fetchNanos = fetchNanos;
+        this.extractNanos = extractNanos;
+        this.renderNanos = renderNanos;
+        this.writeNanos = writeNanos;
+    }
+
+    @Override
+    public String toString() {
+        return "Problem " + problemNo + ": " + outcome + " (" + origin + ", " + transferredBytes + " bytes, fetch "
+                + fetchNanos / 1_000 + " us, extract " + extractNanos / 1_000 + " us, render "
+                + renderNanos / 1_000 + " us, write " + writeNanos / 1_000 + " us)";
+    }
+
+}
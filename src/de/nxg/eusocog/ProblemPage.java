@@ -0,0 +1,55 @@
+package de.nxg.eusocog;
+
+/**
+ * The webpage of a single problem as delivered by a {@link PageSource}
+ */
+public final class ProblemPage {
+
+    /** Where the content of a {@link ProblemPage} came from */
+    public enum Origin {
+        /** downloaded from the server */
+        NETWORK,
+        /** taken from the cache after the server answered with "304 Not Modified" */
+        NOT_MODIFIED,
+        /** taken from the cache without contacting the server */
+        CACHE,
+        /** neither cached nor downloaded, the content is empty */
+        UNAVAILABLE
+    }
+
+    /** The Problem the webpage belongs to */
+    public final int problemNo;
+    /** The whole webpage, empty if it is unavailable */
+    public final String content;
+    /** Where the content came from */
+    public final Origin origin;
+    /** The amount of bytes received from the server, 0 if the server wasn't contacted */
+    public final long transferredBytes;
+
+    public ProblemPage(int problemNo, String content, Origin origin) {
+        this(problemNo, content, origin, 0);
+    }
+
+    public ProblemPage(int problemNo, String content, Origin origin, long transferredBytes) {
+        if (content == null) {
+            throw new NullPointerException("content mustn't be null");
+        }
+        this.problemNo = problemNo;
+        this.content = content;
+        this.origin = origin;
+        this.transferredBytes = transferredBytes;
+    }
+
+    /**
+     * @return false for an empty webpage or the list of problems projecteuler.net answers
+     *         with for problems that don't exist yet
+     */
+    static boolean containsProblem(String content) {
+        return !content.trim().isEmpty() && !isProblemList(content);
+    }
+
+    static boolean isProblemList(String content) {
+        return content.contains("problems_table_page");
+    }
+
+}
@@ -0,0 +1,54 @@
+package de.nxg.eusocog;
+
+import java.util.*;
+import java.util.function.*;
+
+/**
+ * All problems of a package by number, with constructor references to create them. The
+ * {@link EulerSourceGenerator} generates and updates an implementation named
+ * <code>EulerProblems</code> next to the EulerConfig, so problems can be looked up and
+ * created without classpath scanning or reflection.
+ *
+ * @see EulerBatchRunner#run(ProblemRegistry)
+ * @see EulerProblem#start(Class, Supplier, IEulerConfig)
+ */
+public interface ProblemRegistry {
+
+    /**
+     * @return the problems by number, never null
+     */
+    public NavigableMap<Integer, Entry> getProblems();
+
+    /**
+     * @return the problem with the number, null if there is none
+     */
+    public default Entry get(int problemNo) {
+        return getProblems().get(problemNo);
+    }
+
+    /** A problem of the registry */
+    public static final class Entry {
+
+        public final int problemNo;
+        public final Class<? extends EulerProblem> problemClass;
+        /** creates a new instance of the problem, e.g. <code>Euler001::new</code> */
+        public final Supplier<? extends EulerProblem> constructor;
+
+        public <T extends EulerProblem> Entry(int problemNo, Class<T> problemClass, Supplier<? extends T> constructor) {
+            if (problemClass == null) {
+                throw new NullPointerException("problemClass mustn't be null");
+            }
+            if (constructor == null) {
+                throw new NullPointerException("constructor mustn't be null");
+            }
+            this.problemNo = problemNo;
+            this.problemClass = problemClass;
+            this.constructor = constructor;
+        }
+
+        @Override
+        public String toString() {
+            return problemNo + "=" + problemClass.getName();
+        }
+    }
+}
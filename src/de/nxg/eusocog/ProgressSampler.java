@@ -0,0 +1,111 @@
+package de.nxg.eusocog;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Prints the progress published by {@link EulerProblem#progress(long)} from a daemon
+ * thread, so the solving thread never reads the clock or builds a String for it. Nothing
+ * is printed for problems that don't publish any progress.
+ */
+final class ProgressSampler implements Runnable {
+
+    private static final ScheduledExecutorService SCHEDULER = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "eusocog-progress");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private final EulerProblem problem;
+    private long lastProgress = -1;
+    private long lastSample;
+
+    private ProgressSampler(EulerProblem problem) {
+        this.problem = problem;
+        this.lastSample = problem.getStartTime();
+    }
+
+    /**
+     * Starts sampling the progress of the problem, which has to be started allready
+     *
+     * @return cancel it when the problem is solved, null if the interval is 0
+     */
+    static Future<?> start(EulerProblem problem, long intervalMillis) {
+        if (intervalMillis <= 0) {
+            return null;
+        }
+        return SCHEDULER.scheduleAtFixedRate(new ProgressSampler(problem), intervalMillis, intervalMillis,
+                TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * @return the last published progress, e.g. "1,234 of 5,000 (24.7%) state", null if
+     *         the problem published none
+     */
+    static String describe(EulerProblem problem) {
+        long progress = problem.getProgress();
+        if (progress < 0) {
+            return null;
+        }
+        StringBuilder sb = new StringBuilder(String.format(Locale.ROOT, "%,d", progress));
+        long total = problem.getProgressTotal();
+        if (total > 0) {
+            sb.append(String.format(Locale.ROOT, " of %,d (%.1f%%)", total, 100.0 * progress / total));
+        }
+        appendState(sb, problem);
+        return sb.toString();
+    }
+
+    @Override
+    public void run() {
+        long progress = problem.getProgress();
+        long now = System.nanoTime();
+        if (progress < 0) {
+            return;
+        }
+
+        StringBuilder sb = new StringBuilder();
+        sb.append('[').append((now - problem.getStartTime()) / 1_000_000).append(" ms] ");
+        sb.append(String.format(Locale.ROOT, "%,d", progress));
+
+        // the rate since the last print, the first print counts from the start
+        double rate = (progress - Math.max(0, lastProgress)) * 1e9 / Math.max(1, now - lastSample);
+        sb.append(String.format(Locale.ROOT, " (%,.0f/s", rate));
+        long total = problem.getProgressTotal();
+        if (total > 0) {
+            sb.append(String.format(Locale.ROOT, ", %.1f%%", 100.0 * progress / total));
+            if (rate > 0 && progress < total) {
+                sb.append(", ETA ").append(formatSeconds((total - progress) / rate));
+            }
+        }
+        sb.append(')');
+        appendState(sb, problem);
+
+        lastProgress = progress;
+        lastSample = now;
+        System.out.println(sb);
+    }
+
+    private static void appendState(StringBuilder sb, EulerProblem problem) {
+        Object state = problem.getProgressState();
+        if (state != null) {
+            try {
+                sb.append(' ').append(EulerProblem.objectToString(state));
+            } catch (RuntimeException e) {
+                // the state may be changed by the solving thread while it's printed
+                sb.append(" <").append(e).append('>');
+            }
+        }
+    }
+
+    private static String formatSeconds(double seconds) {
+        long s = Math.round(seconds);
+        if (s < 60) {
+            return s + " s";
+        }
+        if (s < 3600) {
+            return s / 60 + " min " + s % 60 + " s";
+        }
+        return s / 3600 + " h " + s % 3600 / 60 + " min";
+    }
+}
@@ -0,0 +1,135 @@
+package de.nxg.eusocog;
+
+import java.lang.management.*;
+import java.util.*;
+
+/**
+ * Measures what solving a problem costs besides wall time: CPU time and allocated bytes
+ * of the solving thread and the garbage collections of the JVM in the meantime. What is
+ * measured depends on the {@link IEulerConfig} and on what the JVM supports, everything
+ * else is reported as -1.
+ * <p>
+ * {@link #start()} and {@link #stop()} have to be called from the solving thread.
+ */
+final class ResourceMeter {
+
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+    private static final List<GarbageCollectorMXBean> GARBAGE_COLLECTORS = ManagementFactory.getGarbageCollectorMXBeans();
+
+    private final boolean cpuTime;
+    private final boolean allocations;
+    private final boolean garbageCollection;
+
+    private long cpuStart;
+    private long allocatedStart;
+    private long gcCountStart;
+    private long gcMillisStart;
+
+    private long cpuNanos = -1;
+    private long allocatedBytes = -1;
+    private long gcCount = -1;
+    private long gcMillis = -1;
+
+    ResourceMeter(IEulerConfig config) {
+        cpuTime = config.shouldMeasureCpuTime() && enableCpuTime();
+        allocations = config.shouldMeasureAllocations() && enableAllocations();
+        garbageCollection = config.shouldMeasureGarbageCollection();
+    }
+
+    void start() {
+        // the cheapest and most exact reading last, right before solving starts
+        if (garbageCollection) {
+            gcCountStart = readGcCount();
+            gcMillisStart = readGcMillis();
+        }
+        if (allocations) {
+            allocatedStart = readAllocatedBytes();
+        }
+        if (cpuTime) {
+            cpuStart = THREADS.getCurrentThreadCpuTime();
+        }
+    }
+
+    void stop() {
+        if (cpuTime) {
+            cpuNanos = THREADS.getCurrentThreadCpuTime() - cpuStart;
+        }
+        if (allocations) {
+            allocatedBytes = readAllocatedBytes() - allocatedStart;
+        }
+        if (garbageCollection) {
+            gcCount = readGcCount() - gcCountStart;
+            gcMillis = readGcMillis() - gcMillisStart;
+        }
+    }
+
+    long getCpuNanos() {
+        return cpuNanos;
+    }
+
+    long getAllocatedBytes() {
+        return allocatedBytes;
+    }
+
+    long getGcCount() {
+        return gcCount;
+    }
+
+    long getGcMillis() {
+        return gcMillis;
+    }
+
+    private static boolean enableCpuTime() {
+        try {
+            if (!THREADS.isCurrentThreadCpuTimeSupported()) {
+                return false;
+            }
+            if (!THREADS.isThreadCpuTimeEnabled()) {
+                THREADS.setThreadCpuTimeEnabled(true);
+            }
+            return true;
+        } catch (UnsupportedOperationException | SecurityException e) {
+            return false;
+        }
+    }
+
+    private static boolean enableAllocations() {
+        if (!(THREADS instanceof com.sun.management.ThreadMXBean)) {
+            return false;
+        }
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) THREADS;
+        try {
+            if (!threads.isThreadAllocatedMemorySupported()) {
+                return false;
+            }
+            if (!threads.isThreadAllocatedMemoryEnabled()) {
+                threads.setThreadAllocatedMemoryEnabled(true);
+            }
+            return true;
+        } catch (UnsupportedOperationException | SecurityException e) {
+            return false;
+        }
+    }
+
+    private static long readAllocatedBytes() {
+        return ((com.sun.management.ThreadMXBean) THREADS).getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    private static long readGcCount() {
+        long count = 0;
+        for (int i = 0; i < GARBAGE_COLLECTORS.size(); i++) {
+            GarbageCollectorMXBean gc = GARBAGE_COLLECTORS.get(i);
+            count += Math.max(0, gc.getCollectionCount());
+        }
+        return count;
+    }
+
+    private static long readGcMillis() {
+        long millis = 0;
+        for (int i = 0; i < GARBAGE_COLLECTORS.size(); i++) {
+            GarbageCollectorMXBean gc = GARBAGE_COLLECTORS.get(i);
+            millis += Math.max(0, gc.getCollectionTime());
+        }
+        return millis;
+    }
+}
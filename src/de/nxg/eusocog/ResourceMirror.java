@@ -0,0 +1,206 @@
+package de.nxg.eusocog;
+
+import java.io.*;
+import java.nio.charset.*;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+/**
+ * Mirrors the images and data files linked from the problems into a local folder, that
+ * way the Javadoc of the generated classes shows them without the network and solvers
+ * can read the data files (see {@link EulerProblem#dataFile(String)}).
+ * <p>
+ * The files are stored content addressed, named by the SHA-256 of their content plus
+ * their extension, a file linked under several paths is stored once. An index maps the
+ * paths on the website to the stored files, paths in the index aren't downloaded again.
+ * The index is saved as tab separated text file, one line per path.
+ */
+final class ResourceMirror {
+
+    static final String INDEX_FILE_NAME = ".eusocog-resources";
+
+    private static final String HEADER = "# EuSoCoG mirrored resources\n"
+            + "# path\tfile\n";
+
+    private final Path folder;
+    private final ConcurrentMap<String, String> index = new ConcurrentSkipListMap<>();
+    private final ConcurrentMap<String, CompletableFuture<Path>> downloads = new ConcurrentHashMap<>();
+    private final AtomicInteger failures = new AtomicInteger();
+    private volatile String firstFailure;
+    private volatile boolean dirty;
+
+    private ResourceMirror(Path folder) {
+        this.folder = folder;
+    }
+
+    /**
+     * Loads the index of the folder, the index is empty if the folder contains none (yet)
+     */
+    static ResourceMirror load(Path folder) throws IOException {
+        ResourceMirror mirror = new ResourceMirror(folder);
+        mirror.index.putAll(readIndex(folder));
+        return mirror;
+    }
+
+    /**
+     * Finds a mirrored data file by the path it had on the website, by its file name
+     * (e.g. "0022_names.txt") or by the name it's linked with in the statement (e.g.
+     * "names.txt" for "0022_names.txt"). A file put into the folder by hand is found by
+     * its name as well.
+     *
+     * @throws FileNotFoundException
+     *             if there is no such file or the name is ambiguous
+     */
+    static Path find(Path folder, String name) throws IOException {
+        Map<String, String> index = readIndex(folder);
+        String stored = index.get(name);
+        if (stored == null) {
+            Set<String> exact = new TreeSet<>();
+            Set<String> suffix = new TreeSet<>();
+            for (Map.Entry<String, String> entry : index.entrySet()) {
+                String fileName = getFileName(entry.getKey());
+                if (fileName.equals(name)) {
+                    exact.add(entry.getValue());
+                } else if (fileName.endsWith("_" + name)) {
+                    suffix.add(entry.getValue());
+                }
+            }
+            Set<String> matches = exact.isEmpty() ? suffix : exact;
+            if (matches.size() > 1) {
+                throw new FileNotFoundException("The name " + name + " is ambiguous in " + folder
+                        + ", use the path on the website instead");
+            }
+            stored = matches.isEmpty() ? null : matches.iterator().next();
+        }
+        Path file = folder.resolve(stored != null ? stored : name);
+        if (!Files.isRegularFile(file)) {
+            throw new FileNotFoundException("No data file " + name + " in " + folder);
+        }
+        return file;
+    }
+
+    /**
+     * Loads the file through the page source unless it is mirrored allready. Every path
+     * is loaded at most once, also if it's requested for several problems at the same
+     * time.
+     *
+     * @param path
+     *            the path of the file on the website, e.g. "project/images/p015.png"
+     * @return a future completing with the mirrored file
+     */
+    CompletableFuture<Path> mirror(String path, PageSource source, Executor executor) {
+        String stored = index.get(path);
+        if (stored != null && Files.isRegularFile(folder.resolve(stored))) {
+            return CompletableFuture.completedFuture(folder.resolve(stored));
+        }
+        return downloads.computeIfAbsent(path, p -> source.getResourceAsync(p, executor).thenApply(content -> {
+            try {
+                return store(p, content);
+            } catch (IOException e) {
+                throw new CompletionException(e);
+            }
+        }));
+    }
+
+    /**
+     * Remembers that a file couldn't be mirrored, reported by {@link #save()}
+     */
+    void failed(String path, Throwable error) {
+        if (failures.getAndIncrement() == 0) {
+            firstFailure = path + ": " + error;
+        }
+    }
+
+    /**
+     * Saves the index if it changed and reports the files that couldn't be mirrored since
+     * the last save
+     */
+    synchronized void save() throws IOException {
+        int failed = failures.getAndSet(0);
+        if (failed > 0) {
+            System.out.println("Couldn't mirror " + failed + " images and data files, linking them on the website"
+                    + " instead. First error: " + firstFailure);
+        }
+        downloads.clear();
+        if (!dirty) {
+            return;
+        }
+        dirty = false;
+        StringBuilder sb = new StringBuilder(HEADER);
+        for (Map.Entry<String, String> entry : index.entrySet()) {
+            sb.append(entry.getKey()).append('\t').append(entry.getValue()).append('\n');
+        }
+        try {
+            Files.createDirectories(folder);
+            SourceWriter.writeAtomically(folder.resolve(INDEX_FILE_NAME), sb.toString().getBytes(StandardCharsets.UTF_8));
+        } catch (IOException | RuntimeException e) {
+            dirty = true;
+            throw e;
+        }
+    }
+
+    private Path store(String path, byte[] content) throws IOException {
+        String stored = Hashes.sha256(content) + getExtension(getFileName(path));
+        Path file = folder.resolve(stored);
+        if (!Files.exists(file)) {
+            Files.createDirectories(folder);
+            SourceWriter.writeAtomically(file, content);
+        }
+        index.put(path, stored);
+        dirty = true;
+        return file;
+    }
+
+    private static Map<String, String> readIndex(Path folder) throws IOException {
+        Map<String, String> index = new TreeMap<>();
+        Path indexPath = folder.resolve(INDEX_FILE_NAME);
+        if (Files.exists(indexPath)) {
+            for (String line : Files.readAllLines(indexPath, StandardCharsets.UTF_8)) {
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                String[] columns = line.split("\t");
+                if (columns.length != 2) {
+                    System.out.println("Ignoring malformed resource index line: " + line);
+                    continue;
+                }
+                index.put(columns[0], columns[1]);
+            }
+        }
+        return index;
+    }
+
+    /**
+     * @return the last segment of the path without query, e.g. "p015.png" for
+     *         "project/images/p015.png?1678992052"
+     */
+    private static String getFileName(String path) {
+        int end = path.length();
+        for (int i = 0; i < path.length(); i++) {
+            char c = path.charAt(i);
+            if (c == '?' || c == '#') {
+                end = i;
+                break;
+            }
+        }
+        return path.substring(path.lastIndexOf('/', end - 1) + 1, end);
+    }
+
+    /**
+     * @return e.g. ".png", empty if the file has none or a strange one
+     */
+    private static String getExtension(String fileName) {
+        int dot = fileName.lastIndexOf('.');
+        if (dot == -1 || fileName.length() - dot > 8) {
+            return "";
+        }
+        for (int i = dot + 1; i < fileName.length(); i++) {
+            if (!Character.isLetterOrDigit(fileName.charAt(i)) || fileName.charAt(i) > 127) {
+                return "";
+            }
+        }
+        return fileName.substring(dot).toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,140 @@
+package de.nxg.eusocog;
+
+import java.lang.reflect.*;
+import java.nio.charset.*;
+import java.security.*;
+import java.util.*;
+
+/**
+ * Formats results and progress states with a bounded length. Arrays (also primitive and
+ * nested ones) and collections are formatted like {@link Arrays#deepToString(Object[])},
+ * but at most {@value #MAX_ELEMENTS} elements per array or collection and
+ * {@value #MAX_LENGTH} characters overall, so a huge array returned by mistake doesn't
+ * get stringified completely. Results are compared by the hash of their complete
+ * String, see {@link #sha256(Object)}.
+ */
+final class ResultFormatter {
+
+    static final int MAX_ELEMENTS = 1_000;
+    static final int MAX_LENGTH = 10_000;
+    /** characters collected before they get hashed */
+    private static final int DIGEST_CHUNK = 8_192;
+
+    private final StringBuilder sb = new StringBuilder();
+    private final int maxElements;
+    private final int maxLength;
+    /** hashes the String chunk by chunk, null if it is built instead */
+    private final MessageDigest digest;
+    /**
+     * the arrays and collections being appended, printed as "[...]" when nested in
+     * themselves like Arrays.deepToString does
+     */
+    private final Map<Object, Boolean> enclosing = new IdentityHashMap<>();
+
+    private ResultFormatter(int maxElements, int maxLength, MessageDigest digest) {
+        this.maxElements = maxElements;
+        this.maxLength = maxLength;
+        this.digest = digest;
+    }
+
+    /**
+     * @return e.g. "[1, 2, 3, ... (999,997 more)]" for a long[] with a million elements
+     */
+    static String format(Object obj) {
+        ResultFormatter formatter = new ResultFormatter(MAX_ELEMENTS, MAX_LENGTH, null);
+        formatter.append(obj);
+        StringBuilder sb = formatter.sb;
+        if (sb.length() > MAX_LENGTH) {
+            int cut = sb.length() - MAX_LENGTH;
+            sb.setLength(MAX_LENGTH);
+            sb.append(String.format(Locale.ROOT, "... (%,d more characters)", cut));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Hashes the complete String without the bounds, e.g. all million elements of a
+     * long[]. It is hashed in chunks while it is formatted and never built as a whole.
+     *
+     * @return the same as {@link Hashes#sha256(String)} of the complete String
+     */
+    static String sha256(Object obj) {
+        ResultFormatter formatter = new ResultFormatter(Integer.MAX_VALUE, Integer.MAX_VALUE, Hashes.newSha256());
+        formatter.append(obj);
+        formatter.flush(true);
+        return Hashes.toHex(formatter.digest.digest());
+    }
+
+    private void append(Object obj) {
+        if (sb.length() > maxLength) {
+            return;
+        }
+        if (obj == null) {
+            sb.append("null");
+        } else if (obj.getClass().isArray()) {
+            int length = Array.getLength(obj);
+            appendElements(obj, length, new Iterator<Object>() {
+                int i;
+
+                @Override
+                public boolean hasNext() {
+                    return i < length;
+                }
+
+                @Override
+                public Object next() {
+                    return Array.get(obj, i++);
+                }
+            });
+        } else if (obj instanceof Collection) {
+            Collection<?> collection = (Collection<?>) obj;
+            appendElements(obj, collection.size(), collection.iterator());
+        } else {
+            String s = obj.toString();
+            // the rest gets cut off by format anyway
+            sb.append(s, 0, s.length() > maxLength ? maxLength + 1 : s.length());
+            flush(false);
+        }
+    }
+
+    private void appendElements(Object container, int size, Iterator<?> elements) {
+        if (enclosing.put(container, Boolean.TRUE) != null) {
+            sb.append("[...]");
+            return;
+        }
+        sb.append('[');
+        int count = 0;
+        while (elements.hasNext() && count < maxElements && sb.length() <= maxLength) {
+            if (count > 0) {
+                sb.append(", ");
+            }
+            append(elements.next());
+            count++;
+        }
+        if (count < size) {
+            sb.append(String.format(Locale.ROOT, "%s... (%,d more)", count > 0 ? ", " : "", size - count));
+        }
+        sb.append(']');
+        enclosing.remove(container);
+    }
+
+    /**
+     * Hashes what was collected so far once it is a whole chunk, does nothing if the
+     * String is built instead
+     *
+     * @param all
+     *            if the rest should be hashed, even less than a chunk
+     */
+    private void flush(boolean all) {
+        if (digest == null || !all && sb.length() < DIGEST_CHUNK) {
+            return;
+        }
+        int end = sb.length();
+        if (!all && Character.isHighSurrogate(sb.charAt(end - 1))) {
+            // the pair gets encoded together with the next chunk
+            end--;
+        }
+        digest.update(sb.substring(0, end).getBytes(StandardCharsets.UTF_8));
+        sb.delete(0, end);
+    }
+}
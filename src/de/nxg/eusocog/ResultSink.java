@@ -0,0 +1,74 @@
+package de.nxg.eusocog;
+
+import java.io.*;
+import java.nio.file.*;
+import java.util.concurrent.*;
+
+/**
+ * Receives the result of {@link EulerProblem#start(Class, IEulerConfig)}, e.g. to print
+ * it, append it to a file or copy it into the clipboard.
+ * <p>
+ * The sinks of {@link IEulerConfig#getResultSinks()} are called after solving finished,
+ * one after the other on a background thread, so they never add to the measured time.
+ * Exceptions thrown by a sink get printed and don't stop the other sinks.
+ */
+public interface ResultSink {
+
+    /**
+     * @param result
+     *            how solving ended, for a benchmark the median wall time and the mean
+     *            usage of the measured iterations. {@link SolveResult#result} is
+     *            formatted with a bounded length, huge arrays and collections are cut
+     *            off.
+     * @param mode
+     *            {@link SolveHistory.Mode#RUN} or {@link SolveHistory.Mode#BENCHMARK}
+     */
+    public void accept(SolveResult result, SolveHistory.Mode mode) throws IOException;
+
+    /**
+     * @return a sink printing the result to System.out, the progress and partial result
+     *         for a timed out problem
+     */
+    public static ResultSink stdout() {
+        return new ResultSinks.Stdout();
+    }
+
+    /**
+     * @return a sink appending every result as one line of JSON to the file (JSON
+     *         lines), the same fields as {@link EulerBatchRunner#toJson(java.util.List)}
+     *         plus timestamp and mode
+     */
+    public static ResultSink jsonLines(Path file) {
+        if (file == null) {
+            throw new NullPointerException("file mustn't be null");
+        }
+        return new ResultSinks.JsonLines(file);
+    }
+
+    /**
+     * @return a sink recording the result in the {@link SolveHistory} of the file and
+     *         printing the baseline and what changed compared with it
+     * @param unit
+     *            the unit the baseline is printed in
+     * @param slowdownThreshold
+     *            see {@link IEulerConfig#getSlowdownThreshold()}
+     */
+    public static ResultSink history(Path historyFile, TimeUnit unit, double slowdownThreshold) {
+        if (historyFile == null) {
+            throw new NullPointerException("historyFile mustn't be null");
+        }
+        if (unit == null) {
+            throw new NullPointerException("unit mustn't be null");
+        }
+        return new ResultSinks.History(historyFile, unit, slowdownThreshold);
+    }
+
+    /**
+     * @return a sink copying a solved result into the system clipboard. AWT is loaded
+     *         with the first result, on a headless machine nothing is copied.
+     */
+    public static ResultSink clipboard() {
+        return new ResultSinks.Clipboard();
+    }
+
+}
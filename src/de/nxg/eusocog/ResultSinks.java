@@ -0,0 +1,197 @@
+package de.nxg.eusocog;
+
+import java.io.*;
+import java.nio.charset.*;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Calls the {@link ResultSink}s on a background thread and contains the sinks created by
+ * the factory methods of {@link ResultSink}.
+ * <p>
+ * The thread is a daemon, so an idle thread never keeps the JVM running. Results still
+ * waiting for their sinks when the JVM exits are handled by a shutdown hook.
+ */
+final class ResultSinks {
+
+    /** how long the shutdown hook waits for the sinks */
+    private static final long FLUSH_TIMEOUT_SECONDS = 10;
+
+    private static final ExecutorService EXECUTOR = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "eusocog-results");
+        t.setDaemon(true);
+        return t;
+    });
+    private static volatile boolean hookRegistered;
+
+    private ResultSinks() {}
+
+    /**
+     * Hands the result to the sinks in order without waiting for them
+     */
+    static void publish(List<ResultSink> sinks, SolveResult result, SolveHistory.Mode mode) {
+        if (sinks == null || sinks.isEmpty()) {
+            return;
+        }
+        registerHook();
+        List<ResultSink> copy = new ArrayList<>(sinks);
+        EXECUTOR.execute(() -> {
+            for (ResultSink sink : copy) {
+                try {
+                    sink.accept(result, mode);
+                } catch (IOException | RuntimeException e) {
+                    e.printStackTrace();
+                }
+            }
+        });
+    }
+
+    /**
+     * @return the default sinks of the config: the history if there is a history file,
+     *         stdout and the clipboard if it should be copied into it
+     */
+    static List<ResultSink> getDefaultSinks(IEulerConfig config) {
+        List<ResultSink> sinks = new ArrayList<>();
+        Path historyFile = config.getHistoryFile();
+        if (historyFile != null) {
+            sinks.add(new History(historyFile, config.getFinishTimeUnit(), config.getSlowdownThreshold()));
+        }
+        sinks.add(new Stdout());
+        if (config.shouldCopyToClipboard()) {
+            sinks.add(new Clipboard());
+        }
+        return sinks;
+    }
+
+    private static void registerHook() {
+        if (hookRegistered) {
+            return;
+        }
+        synchronized (EXECUTOR) {
+            if (!hookRegistered) {
+                Runtime.getRuntime().addShutdownHook(new Thread(ResultSinks::flush, "eusocog-results-flush"));
+                hookRegistered = true;
+            }
+        }
+    }
+
+    private static void flush() {
+        EXECUTOR.shutdown();
+        try {
+            if (!EXECUTOR.awaitTermination(FLUSH_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                System.out.println("Result sinks didn't finish within " + FLUSH_TIMEOUT_SECONDS + " s");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // #########################################################################
+    // ############################ INNER CLASSES ##############################
+    // #########################################################################
+
+    static final class Stdout implements ResultSink {
+
+        @Override
+        public void accept(SolveResult result, SolveHistory.Mode mode) {
+            switch (result.status) {
+            case SOLVED:
+                System.out.println("Result: " + result.result);
+                break;
+            case NO_RESULT:
+                System.out.println("The Result is null! Please return a valid String.");
+                break;
+            case TIMED_OUT:
+                System.out.println("Progress: " + (result.progress != null ? result.progress : "none published"));
+                if (result.result != null) {
+                    System.out.println("Partial Result: " + result.result);
+                }
+                break;
+            default:
+                // the error was printed when it happened
+                break;
+            }
+        }
+    }
+
+    static final class JsonLines implements ResultSink {
+
+        private final Path file;
+
+        JsonLines(Path file) {
+            this.file = file;
+        }
+
+        @Override
+        public void accept(SolveResult result, SolveHistory.Mode mode) throws IOException {
+            String line = "{\"timestamp\": " + System.currentTimeMillis() + ", \"mode\": \"" + mode + "\", "
+                    + EulerBatchRunner.toJson(result).substring(1) + "\n";
+            Path path = file.toAbsolutePath();
+            Files.createDirectories(path.getParent());
+            // one write per line, appends of other processes don't tear it apart
+            Files.write(path, line.getBytes(StandardCharsets.UTF_8), StandardOpenOption.CREATE,
+                    StandardOpenOption.APPEND);
+        }
+    }
+
+    static final class History implements ResultSink {
+
+        private final Path historyFile;
+        private final TimeUnit unit;
+        private final double slowdownThreshold;
+
+        History(Path historyFile, TimeUnit unit, double slowdownThreshold) {
+            this.historyFile = historyFile;
+            this.unit = unit;
+            this.slowdownThreshold = slowdownThreshold;
+        }
+
+        @Override
+        public void accept(SolveResult result, SolveHistory.Mode mode) throws IOException {
+            SolveHistory.Comparison comparison = SolveHistory.open(historyFile).record(result, mode,
+                    slowdownThreshold);
+            if (comparison.hasBaseline()) {
+                System.out.println("Baseline: " + EulerProblem.getTimeDisplayString(comparison.baselineNanos, unit)
+                        + " (median of the last " + comparison.baselineRuns
+                        + (comparison.baselineRuns == 1 ? " run)" : " runs)"));
+            }
+            for (String warning : comparison.getWarnings(result.wallNanos)) {
+                System.out.println(warning);
+            }
+        }
+    }
+
+    static final class Clipboard implements ResultSink {
+
+        private boolean unavailable;
+
+        @Override
+        public void accept(SolveResult result, SolveHistory.Mode mode) {
+            if (result.status != SolveResult.Status.SOLVED || result.result == null || unavailable) {
+                return;
+            }
+            try {
+                SystemClipboard.copy(result.result);
+            } catch (RuntimeException | Error e) {
+                // e.g. a HeadlessException or an AWTError when there is no display
+                unavailable = true;
+                System.out.println("The Result couldn't be copied into the clipboard: " + e);
+            }
+        }
+    }
+
+    /**
+     * Only this class references AWT, it gets loaded with the first copied result
+     */
+    private static final class SystemClipboard {
+
+        static void copy(String text) {
+            if (java.awt.GraphicsEnvironment.isHeadless()) {
+                throw new java.awt.HeadlessException("headless, no clipboard");
+            }
+            java.awt.datatransfer.Clipboard clipboard = java.awt.Toolkit.getDefaultToolkit().getSystemClipboard();
+            clipboard.setContents(new java.awt.datatransfer.StringSelection(text), null);
+        }
+    }
+}
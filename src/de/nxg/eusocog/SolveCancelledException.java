@@ -0,0 +1,15 @@
+package de.nxg.eusocog;
+
+/**
+ * Thrown by {@link EulerProblem#checkCancelled()} when the time budget of the problem is
+ * exceeded.
+ */
+public class SolveCancelledException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public SolveCancelledException(String message) {
+        super(message);
+    }
+
+}
@@ -0,0 +1,90 @@
+package de.nxg.eusocog;
+
+import java.nio.file.*;
+
+/**
+ * Java Flight Recorder events of solving problems: the span of {@link EulerProblem#solve()},
+ * the {@link EulerProblem#time(String)} checkpoints and the progress published with
+ * {@link EulerProblem#progress(long)}, sampled periodically by the recorder.
+ * <p>
+ * Nothing here links the jdk.jfr module, the events are in {@link FlightEvents} and only
+ * loaded while a recording of {@link IEulerConfig#getFlightRecordingFile()} runs. That
+ * way problems can be solved on a runtime without jdk.jfr, and loading the JFR classes
+ * (a few hundred milliseconds) isn't paid without a recording. To record the events in a
+ * recording started with <code>-XX:StartFlightRecording</code> or jcmd instead, set the
+ * system property {@code de.nxg.eusocog.flightEvents} to true.
+ */
+final class SolveEvents {
+
+    /** if the events should also be recorded by recordings that weren't started here */
+    private static final boolean EXTERNAL_RECORDINGS = Boolean.getBoolean("de.nxg.eusocog.flightEvents");
+
+    /** the recordings started with {@link #startRecording(String, Path, long)} and not stopped */
+    private static volatile int recordings;
+
+    private SolveEvents() {}
+
+    /**
+     * @return if the events should be recorded, cheap enough to call for every event
+     */
+    static boolean isRecording() {
+        return recordings > 0 || EXTERNAL_RECORDINGS && FlightEvents.isRecording();
+    }
+
+    /**
+     * Starts a recording with the "profile" settings that is written to the file when it
+     * gets stopped
+     *
+     * @return the recording, null if it couldn't be started
+     */
+    static Object startRecording(String name, Path file, long progressIntervalMillis) {
+        Object recording;
+        try {
+            recording = FlightEvents.startRecording(name, file, progressIntervalMillis);
+        } catch (LinkageError e) {
+            System.out.println("Can't record " + file + ", the runtime has no flight recorder: " + e);
+            return null;
+        }
+        if (recording != null) {
+            synchronized (SolveEvents.class) {
+                recordings++;
+            }
+        }
+        return recording;
+    }
+
+    /**
+     * Stops the recording and writes it to its destination
+     *
+     * @param recording
+     *            as returned by {@link #startRecording(String, Path, long)}
+     */
+    static void stopRecording(Object recording) {
+        synchronized (SolveEvents.class) {
+            recordings--;
+        }
+        FlightEvents.stopRecording(recording);
+    }
+
+    /**
+     * Begins the solve span of the problem and samples its progress until
+     * {@link #endSolve(Object, EulerProblem, SolveResult.Status)}. Only call it if
+     * {@link #isRecording()}.
+     *
+     * @return the span
+     */
+    static Object beginSolve(EulerProblem problem) {
+        return FlightEvents.beginSolve(problem);
+    }
+
+    static void endSolve(Object span, EulerProblem problem, SolveResult.Status status) {
+        FlightEvents.endSolve(span, problem, status);
+    }
+
+    /**
+     * Only call it if {@link #isRecording()}
+     */
+    static void checkpoint(EulerProblem problem, String name, long elapsedNanos) {
+        FlightEvents.checkpoint(problem, name, elapsedNanos);
+    }
+}
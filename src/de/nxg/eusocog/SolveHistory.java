@@ -0,0 +1,294 @@
+package de.nxg.eusocog;
+
+import java.io.*;
+import java.nio.charset.*;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Append-only history of every run, also the failed and timed out ones, one tab separated
+ * line per run: when, which problem, how it was run, how it ended, the hash of the
+ * result, wall and CPU time and the Java version.
+ * <p>
+ * Every new run is compared against a baseline taken from the history of the same
+ * problem and {@link Mode}: the result of the last solved run and the median wall time
+ * of the last {@value #BASELINE_RUNS} solved runs with that result. A run that doesn't
+ * solve the problem any more, a changed result or a run slower than baseline *
+ * {@link IEulerConfig#getSlowdownThreshold()} is flagged.
+ */
+public final class SolveHistory {
+
+    // #########################################################################
+    // ########################## STATIC FINAL FIELDS ##########################
+    // #########################################################################
+
+    /** How a problem was run, runs are only compared with runs of the same mode */
+    public enum Mode {
+        /** solved once by {@link EulerProblem#start(Class, IEulerConfig)} */
+        RUN,
+        /** the median of a benchmark, see {@link IEulerConfig#isBenchmark()} */
+        BENCHMARK,
+        /** solved by the {@link EulerBatchRunner}, concurrently with other problems */
+        BATCH
+    }
+
+    private static final int BASELINE_RUNS = 5;
+    private static final String HEADER = "# EuSoCoG solve history\n"
+            + "# timestamp\tproblem\tmode\tstatus\tresultHash\twallNanos\tcpuNanos\tjavaVersion\n";
+    private static final ConcurrentMap<Path, SolveHistory> HISTORIES = new ConcurrentHashMap<>();
+
+    // #########################################################################
+    // ############################# CLASS FIELDS ##############################
+    // #########################################################################
+
+    private final Path historyFile;
+    private final Map<String, List<Record>> records = new HashMap<>();
+
+    private SolveHistory(Path historyFile) {
+        this.historyFile = historyFile;
+    }
+
+    // #########################################################################
+    // ############################## PUBLIC API ###############################
+    // #########################################################################
+
+    /**
+     * @return the history stored in the file, loaded once per JVM. The history is empty if
+     *         the file doesn't exist (yet).
+     */
+    public static SolveHistory open(Path historyFile) throws IOException {
+        Path path = historyFile.toAbsolutePath().normalize();
+        SolveHistory history = HISTORIES.get(path);
+        if (history == null) {
+            synchronized (HISTORIES) {
+                history = HISTORIES.get(path);
+                if (history == null) {
+                    history = new SolveHistory(path);
+                    history.load();
+                    HISTORIES.put(path, history);
+                }
+            }
+        }
+        return history;
+    }
+
+    /**
+     * @return the records of the problem, oldest first
+     */
+    public synchronized List<Record> getRecords(Class<? extends EulerProblem> problemClass) {
+        List<Record> problemRecords = records.get(problemClass.getName());
+        return problemRecords == null ? Collections.<Record> emptyList() : new ArrayList<>(problemRecords);
+    }
+
+    /**
+     * Compares the result with the baseline and appends it to the history. The
+     * {@link SolveResult#resultHash} of the complete result is recorded, not the hash of
+     * the String that may be cut off.
+     *
+     * @param slowdownThreshold
+     *            a run slower than baseline * threshold is flagged, 0 to never flag
+     */
+    public Comparison record(SolveResult result, Mode mode, double slowdownThreshold) throws IOException {
+        return recordHash(result.problemClass, mode, result.status,
+                result.resultHash != null ? result.resultHash : "-", result.wallNanos, result.cpuNanos,
+                slowdownThreshold);
+    }
+
+    /**
+     * Compares the run with the baseline and appends it to the history
+     *
+     * @param result
+     *            the result as String, null if there is none
+     * @param cpuNanos
+     *            -1 if not measured
+     * @param slowdownThreshold
+     *            a run slower than baseline * threshold is flagged, 0 to never flag
+     */
+    public Comparison record(Class<? extends EulerProblem> problemClass, Mode mode,
+            SolveResult.Status status, String result, long wallNanos, long cpuNanos, double slowdownThreshold)
+            throws IOException {
+        return recordHash(problemClass, mode, status, result != null ? Hashes.sha256(result) : "-", wallNanos,
+                cpuNanos, slowdownThreshold);
+    }
+
+    // #########################################################################
+    // ############################## PRIVATE API ##############################
+    // #########################################################################
+
+    private synchronized Comparison recordHash(Class<? extends EulerProblem> problemClass, Mode mode,
+            SolveResult.Status status, String resultHash, long wallNanos, long cpuNanos,
+            double slowdownThreshold) throws IOException {
+        Record record = new Record(System.currentTimeMillis(), problemClass.getName(), mode, status, resultHash,
+                wallNanos, cpuNanos, System.getProperty("java.version"));
+        Comparison comparison = compare(record, slowdownThreshold);
+
+        if (!Files.exists(historyFile)) {
+            Files.createDirectories(historyFile.getParent());
+            Files.write(historyFile, HEADER.getBytes(StandardCharsets.UTF_8), StandardOpenOption.CREATE,
+                    StandardOpenOption.APPEND);
+        }
+        // one write per line, appends of other processes don't tear it apart
+        Files.write(historyFile, record.toLine().getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+        records.computeIfAbsent(record.problem, k -> new ArrayList<>()).add(record);
+        return comparison;
+    }
+
+    private Comparison compare(Record record, double slowdownThreshold) {
+        List<Record> problemRecords = records.get(record.problem);
+        if (problemRecords == null) {
+            return new Comparison(null, -1, 0, record.status, false, false);
+        }
+        Record lastSolved = null;
+        for (int i = problemRecords.size() - 1; i >= 0 && lastSolved == null; i--) {
+            Record previous = problemRecords.get(i);
+            if (previous.mode == record.mode && previous.status == SolveResult.Status.SOLVED) {
+                lastSolved = previous;
+            }
+        }
+        if (lastSolved == null) {
+            return new Comparison(null, -1, 0, record.status, false, false);
+        }
+
+        List<Long> baselineNanos = new ArrayList<>();
+        for (int i = problemRecords.size() - 1; i >= 0 && baselineNanos.size() < BASELINE_RUNS; i--) {
+            Record previous = problemRecords.get(i);
+            if (previous.mode == record.mode && previous.status == SolveResult.Status.SOLVED
+                    && previous.resultHash.equals(lastSolved.resultHash)) {
+                baselineNanos.add(previous.wallNanos);
+            }
+        }
+        Collections.sort(baselineNanos);
+        int middle = baselineNanos.size() / 2;
+        long baseline = baselineNanos.size() % 2 == 1 ? baselineNanos.get(middle)
+                : (baselineNanos.get(middle - 1) + baselineNanos.get(middle)) / 2;
+
+        boolean solved = record.status == SolveResult.Status.SOLVED;
+        // a run without a result is flagged by its status, it has no result to compare
+        boolean resultChanged = solved && !record.resultHash.equals(lastSolved.resultHash);
+        boolean slower = solved && slowdownThreshold > 0 && baseline > 0
+                && record.wallNanos > baseline * slowdownThreshold;
+        return new Comparison(lastSolved.resultHash, baseline, baselineNanos.size(), record.status, resultChanged,
+                slower);
+    }
+
+    private void load() throws IOException {
+        if (!Files.exists(historyFile)) {
+            return;
+        }
+        for (String line : Files.readAllLines(historyFile, StandardCharsets.UTF_8)) {
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            String[] columns = line.split("\t");
+            if (columns.length != 8) {
+                System.out.println("Ignoring malformed history line: " + line);
+                continue;
+            }
+            try {
+                Record record = new Record(Long.parseLong(columns[0]), columns[1], Mode.valueOf(columns[2]),
+                        SolveResult.Status.valueOf(columns[3]), columns[4], Long.parseLong(columns[5]),
+                        Long.parseLong(columns[6]), columns[7]);
+                records.computeIfAbsent(record.problem, k -> new ArrayList<>()).add(record);
+            } catch (IllegalArgumentException e) {
+                System.out.println("Ignoring malformed history line: " + line);
+            }
+        }
+    }
+
+    // #########################################################################
+    // ############################ INNER CLASSES ##############################
+    // #########################################################################
+
+    /** One run of a problem */
+    public static final class Record {
+
+        /** When the run finished (epoch millis) */
+        public final long timestamp;
+        /** The name of the problem class */
+        public final String problem;
+        public final Mode mode;
+        public final SolveResult.Status status;
+        /** The SHA-256 of the result, "-" if there was none */
+        public final String resultHash;
+        public final long wallNanos;
+        /** -1 if not measured */
+        public final long cpuNanos;
+        public final String javaVersion;
+
+        Record(long timestamp, String problem, Mode mode, SolveResult.Status status, String resultHash,
+                long wallNanos, long cpuNanos, String javaVersion) {
+            this.timestamp = timestamp;
+            this.problem = problem;
+            this.mode = mode;
+            this.status = status;
+            this.resultHash = resultHash;
+            this.wallNanos = wallNanos;
+            this.cpuNanos = cpuNanos;
+            this.javaVersion = javaVersion;
+        }
+
+        private String toLine() {
+            return timestamp + "\t" + problem + "\t" + mode + "\t" + status + "\t" + resultHash + "\t"
+                    + wallNanos + "\t" + cpuNanos + "\t" + javaVersion.replace('\t', ' ') + "\n";
+        }
+    }
+
+    /** The outcome of comparing a run with the baseline */
+    public static final class Comparison {
+
+        /** The result hash of the last solved run, null if there is no baseline */
+        public final String baselineResultHash;
+        /** The median wall time of the baseline runs, -1 if there is no baseline */
+        public final long baselineNanos;
+        /** How many runs the baseline time is the median of */
+        public final int baselineRuns;
+        /** How the run ended */
+        public final SolveResult.Status status;
+        /** If the run solved the problem and its result differs from the last solved run */
+        public final boolean resultChanged;
+        /** If the run is slower than the threshold allows */
+        public final boolean slower;
+
+        Comparison(String baselineResultHash, long baselineNanos, int baselineRuns, SolveResult.Status status,
+                boolean resultChanged, boolean slower) {
+            this.baselineResultHash = baselineResultHash;
+            this.baselineNanos = baselineNanos;
+            this.baselineRuns = baselineRuns;
+            this.status = status;
+            this.resultChanged = resultChanged;
+            this.slower = slower;
+        }
+
+        public boolean hasBaseline() {
+            return baselineResultHash != null;
+        }
+
+        /**
+         * @return if the problem was solved before, but the run didn't solve it (e.g. it
+         *         failed or timed out)
+         */
+        public boolean isStatusChanged() {
+            return hasBaseline() && status != SolveResult.Status.SOLVED;
+        }
+
+        /**
+         * @return e.g. <code>"Slower than the baseline: 312 ms instead of 98 ms (3.18x)"</code>
+         *         for every flag, empty if nothing is flagged
+         */
+        public List<String> getWarnings(long wallNanos) {
+            List<String> warnings = new ArrayList<>();
+            if (isStatusChanged()) {
+                warnings.add("Not solved any more (" + status + "), the last solved run returned a result!");
+            }
+            if (resultChanged) {
+                warnings.add("The Result differs from the last solved run!");
+            }
+            if (slower) {
+                warnings.add(String.format(Locale.ROOT, "Slower than the baseline: %d ms instead of %d ms (%.2fx)",
+                        wallNanos / 1_000_000, baselineNanos / 1_000_000, (double) wallNanos / baselineNanos));
+            }
+            return warnings;
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package de.nxg.eusocog;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * What happened when a problem was solved once, returned by
+ * {@link EulerProblem#run(Class, IEulerConfig)} instead of being printed.
+ */
+public final class SolveResult {
+
+    /** How solving ended */
+    public enum Status {
+        /** solve() returned a result */
+        SOLVED,
+        /** solve() returned null */
+        NO_RESULT,
+        /** the problem couldn't be created or solve() threw */
+        FAILED,
+        /** solve() didn't finish within the time budget and got cancelled */
+        TIMED_OUT
+    }
+
+    /** The problem that was solved */
+    public final Class<? extends EulerProblem> problemClass;
+    /** How solving ended */
+    public final Status status;
+    /**
+     * The result as String, null unless the status is SOLVED. Huge arrays and collections
+     * are cut off after 1,000 elements, the String after 10,000 characters.
+     */
+    public final String result;
+    /**
+     * The SHA-256 hash of the complete result String, that isn't cut off. Null unless the
+     * status is SOLVED.
+     */
+    public final String resultHash;
+    /** Wall time of solve(), for TIMED_OUT the time that was waited */
+    public final long wallNanos;
+    /**
+     * If solve() took longer than the time budget. Only TIMED_OUT if solve() stopped
+     * because it got cancelled, a result returned anyway is kept.
+     */
+    public final boolean overBudget;
+    /** Why solving failed, null unless the status is FAILED */
+    public final Throwable error;
+    /** CPU time of the solving thread, -1 if not measured */
+    public final long cpuNanos;
+    /** Bytes allocated by the solving thread, -1 if not measured */
+    public final long allocatedBytes;
+    /** Garbage collections of the whole JVM while solving, -1 if not measured */
+    public final long gcCount;
+    /** Time spent in these garbage collections, -1 if not measured */
+    public final long gcMillis;
+    /** The statistics of the memos created with {@link EulerProblem#memo(String, int)} */
+    public final List<MemoStatistics> memoStatistics;
+    /**
+     * The last progress published with {@link EulerProblem#progress(long)}, e.g.
+     * "1,234,567 of 10,000,000 (12.3%) state", null if the problem published none
+     */
+    public final String progress;
+
+    public SolveResult(Class<? extends EulerProblem> problemClass, Status status, String result, long wallNanos,
+            Throwable error) {
+        this(problemClass, status, result, wallNanos, error, -1, -1, -1, -1,
+                Collections.<MemoStatistics> emptyList(), null);
+    }
+
+    public SolveResult(Class<? extends EulerProblem> problemClass, Status status, String result, long wallNanos,
+            Throwable error, long cpuNanos, long allocatedBytes, long gcCount, long gcMillis,
+            List<MemoStatistics> memoStatistics, String progress) {
+        this(problemClass, status, result, result != null ? Hashes.sha256(result) : null, wallNanos, error,
+                cpuNanos, allocatedBytes, gcCount, gcMillis, memoStatistics, progress, status == Status.TIMED_OUT);
+    }
+
+    /**
+     * @param resultHash
+     *            the hash of the complete result, if result got cut off
+     */
+    public SolveResult(Class<? extends EulerProblem> problemClass, Status status, String result, String resultHash,
+            long wallNanos, Throwable error, long cpuNanos, long allocatedBytes, long gcCount, long gcMillis,
+            List<MemoStatistics> memoStatistics, String progress, boolean overBudget) {
+        if (problemClass == null) {
+            throw new NullPointerException("problemClass mustn't be null");
+        }
+        if (status == null) {
+            throw new NullPointerException("status mustn't be null");
+        }
+        this.problemClass = problemClass;
+        this.status = status;
+        this.result = result;
+        this.resultHash = resultHash;
+        this.wallNanos = wallNanos;
+        this.overBudget = overBudget || status == Status.TIMED_OUT;
+        this.error = error;
+        this.cpuNanos = cpuNanos;
+        this.allocatedBytes = allocatedBytes;
+        this.gcCount = gcCount;
+        this.gcMillis = gcMillis;
+        this.memoStatistics = Collections.unmodifiableList(new ArrayList<>(memoStatistics));
+        this.progress = progress;
+    }
+
+    /**
+     * @return what solving cost besides wall time, e.g. <code>"cpu 95 milliseconds,
+     *         allocated 12.4 MB, 2 GCs taking 7 ms"</code>, empty if nothing was measured
+     */
+    public String getUsageDisplayString(TimeUnit unit) {
+        return getUsageDisplayString(unit, cpuNanos, allocatedBytes, gcCount, gcMillis);
+    }
+
+    static String getUsageDisplayString(TimeUnit unit, double cpuNanos, double allocatedBytes, long gcCount,
+            long gcMillis) {
+        StringBuilder sb = new StringBuilder();
+        if (cpuNanos >= 0) {
+            sb.append("cpu ").append(unit.convert(Math.round(cpuNanos), TimeUnit.NANOSECONDS))
+                    .append(' ').append(unit.name().toLowerCase());
+        }
+        if (allocatedBytes >= 0) {
+            sb.append(sb.length() == 0 ? "" : ", ").append("allocated ").append(formatBytes(allocatedBytes));
+        }
+        if (gcCount >= 0) {
+            sb.append(sb.length() == 0 ? "" : ", ").append(gcCount).append(gcCount == 1 ? " GC" : " GCs")
+                    .append(" taking ").append(gcMillis).append(" ms");
+        }
+        return sb.toString();
+    }
+
+    @Override
+    public String toString() {
+        return problemClass.getSimpleName() + ": " + status
+                + (result != null ? " " + result : "")
+                + (status == Status.TIMED_OUT && progress != null ? " at progress " + progress : "")
+                + (error != null ? " (" + error + ")" : "")
+                + " in " + wallNanos / 1_000_000 + " ms"
+                + (overBudget && status != Status.TIMED_OUT ? " over budget" : "")
+                + (cpuNanos >= 0 || allocatedBytes >= 0 || gcCount >= 0
+                        ? " (" + getUsageDisplayString(TimeUnit.MILLISECONDS) + ")" : "");
+    }
+
+    private static String formatBytes(double bytes) {
+        if (bytes < 1024) {
+            return Math.round(bytes) + " B";
+        }
+        if (bytes < 1024 * 1024) {
+            return String.format(Locale.ROOT, "%.1f KB", bytes / 1024);
+        }
+        if (bytes < 1024 * 1024 * 1024) {
+            return String.format(Locale.ROOT, "%.1f MB", bytes / (1024 * 1024));
+        }
+        return String.format(Locale.ROOT, "%.2f GB", bytes / (1024 * 1024 * 1024));
+    }
+
+}
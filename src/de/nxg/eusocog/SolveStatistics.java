@@ -0,0 +1,110 @@
+package de.nxg.eusocog;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Exact statistics over the measured durations of a benchmark run, see
+ * {@link IEulerConfig#isBenchmark()}.
+ */
+public final class SolveStatistics {
+
+    private final long[] sortedNanos;
+    private final double meanNanos;
+    private final double standardDeviationNanos;
+
+    /**
+     * @param nanos
+     *            the measured durations, at least one
+     */
+    public SolveStatistics(long[] nanos) {
+        if (nanos == null) {
+            throw new NullPointerException("nanos mustn't be null");
+        }
+        if (nanos.length == 0) {
+            throw new IllegalArgumentException("at least one duration is needed");
+        }
+        sortedNanos = nanos.clone();
+        Arrays.sort(sortedNanos);
+
+        double sum = 0;
+        for (long value : sortedNanos) {
+            sum += value;
+        }
+        meanNanos = sum / sortedNanos.length;
+
+        double squares = 0;
+        for (long value : sortedNanos) {
+            squares += (value - meanNanos) * (value - meanNanos);
+        }
+        // sample standard deviation, 0 for a single measurement
+        standardDeviationNanos = sortedNanos.length > 1 ? Math.sqrt(squares / (sortedNanos.length - 1)) : 0;
+    }
+
+    public int getCount() {
+        return sortedNanos.length;
+    }
+
+    public double getMeanNanos() {
+        return meanNanos;
+    }
+
+    public double getMedianNanos() {
+        int middle = sortedNanos.length / 2;
+        if (sortedNanos.length % 2 == 0) {
+            return (sortedNanos[middle - 1] + sortedNanos[middle]) / 2.0;
+        }
+        return sortedNanos[middle];
+    }
+
+    /**
+     * @param percentile
+     *            between 0 and 100
+     * @return the smallest measured duration that is greater or equal to the given
+     *         percentage of all measured durations (nearest rank)
+     */
+    public long getPercentileNanos(double percentile) {
+        if (percentile < 0 || percentile > 100) {
+            throw new IllegalArgumentException("percentile must be between 0 and 100: " + percentile);
+        }
+        int rank = (int) Math.ceil(percentile / 100 * sortedNanos.length);
+        return sortedNanos[Math.max(0, rank - 1)];
+    }
+
+    public long getMinNanos() {
+        return sortedNanos[0];
+    }
+
+    public long getMaxNanos() {
+        return sortedNanos[sortedNanos.length - 1];
+    }
+
+    public double getStandardDeviationNanos() {
+        return standardDeviationNanos;
+    }
+
+    /**
+     * @return e.g. <code>"mean 1.234 milliseconds, median 1.200 milliseconds, ..."</code>
+     */
+    public String toString(TimeUnit unit) {
+        return "mean " + format(meanNanos, unit)
+                + ", median " + format(getMedianNanos(), unit)
+                + ", p99 " + format(getPercentileNanos(99), unit)
+                + ", min " + format(getMinNanos(), unit)
+                + ", stddev " + format(standardDeviationNanos, unit)
+                + " (" + sortedNanos.length + " iterations)";
+    }
+
+    @Override
+    public String toString() {
+        return toString(TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * @return the duration in the given unit with three decimals, e.g. "1.234 milliseconds"
+     */
+    static String format(double nanos, TimeUnit unit) {
+        double value = nanos / unit.toNanos(1);
+        return String.format(Locale.ROOT, "%.3f %s", value, unit.name().toLowerCase());
+    }
+}
@@ -0,0 +1,167 @@
+package de.nxg.eusocog;
+
+import java.io.*;
+import java.nio.charset.*;
+import java.nio.file.*;
+import java.util.*;
+
+/**
+ * Template for the classes generated by the {@link EulerSourceGenerator}.
+ * <p>
+ * A template is plain text containing placeholders like <code>${className}</code> (see
+ * {@link Placeholder}). It gets compiled once into literal and placeholder segments,
+ * rendering just appends the segments one after another.
+ *
+ * <pre>
+ * ${packageDeclaration}
+ *
+ * import de.nxg.eusocog.*;
+ * import ${configPackage}.EulerConfig;
+ *
+ * ${javadoc}
+ * public class ${className} extends EulerProblem {
+ *     ...
+ * }
+ * </pre>
+ */
+public final class SourceTemplate {
+
+    /** The placeholders that can be used inside a template */
+    public enum Placeholder {
+        /** the package of the generated class (e.g. "de.nxg.eulersolutions.x000_049") */
+        PACKAGE("package"),
+        /** the package declaration of the generated class, empty if there is no package */
+        PACKAGE_DECLARATION("packageDeclaration"),
+        /** the Javadoc comment with the problem statement */
+        JAVADOC("javadoc"),
+        /** the simple name of the generated class (e.g. "Euler001") */
+        CLASS_NAME("className"),
+        /** the package of the EulerConfig class */
+        CONFIG_PACKAGE("configPackage"),
+        /** the number of the problem */
+        PROBLEM_NO("problemNo"),
+        /**
+         * the folder the images and data files are mirrored into, relative to the working
+         * directory if it is inside
+         */
+        RESOURCE_FOLDER("resourceFolder");
+
+        private final String key;
+
+        private Placeholder(String key) {
+            this.key = key;
+        }
+
+        /**
+         * @return the name used inside templates: <code>${key}</code>
+         */
+        public String getKey() {
+            return key;
+        }
+    }
+
+    private final String template;
+    /** literals.length == placeholders.length + 1 */
+    private final String[] literals;
+    private final Placeholder[] placeholders;
+    private final int literalLength;
+
+    private SourceTemplate(String template, String[] literals, Placeholder[] placeholders) {
+        this.template = template;
+        this.literals = literals;
+        this.placeholders = placeholders;
+        int length = 0;
+        for (String literal : literals) {
+            length += literal.length();
+        }
+        this.literalLength = length;
+    }
+
+    /**
+     * Compiles a template
+     *
+     * @throws IllegalArgumentException
+     *             if the template contains an unknown or unterminated placeholder
+     */
+    public static SourceTemplate compile(String template) {
+        if (template == null) {
+            throw new NullPointerException("template mustn't be null");
+        }
+        List<String> literals = new ArrayList<>();
+        List<Placeholder> placeholders = new ArrayList<>();
+        int literalStart = 0;
+        int index;
+        while ((index = template.indexOf("${", literalStart)) != -1) {
+            int end = template.indexOf('}', index);
+            if (end == -1) {
+                throw new IllegalArgumentException("Unterminated placeholder at index " + index);
+            }
+            String key = template.substring(index + 2, end);
+            Placeholder placeholder = null;
+            for (Placeholder candidate : Placeholder.values()) {
+                if (candidate.key.equals(key)) {
+                    placeholder = candidate;
+                }
+            }
+            if (placeholder == null) {
+                throw new IllegalArgumentException("Unknown placeholder ${" + key + "} at index " + index);
+            }
+            literals.add(template.substring(literalStart, index));
+            placeholders.add(placeholder);
+            literalStart = end + 1;
+        }
+        literals.add(template.substring(literalStart));
+        return new SourceTemplate(template, literals.toArray(new String[0]),
+                placeholders.toArray(new Placeholder[0]));
+    }
+
+    /**
+     * Loads and compiles a UTF-8 encoded template file
+     *
+     * @see #compile(String)
+     */
+    public static SourceTemplate load(Path templateFile) throws IOException {
+        return compile(new String(Files.readAllBytes(templateFile), StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Renders the template
+     *
+     * @param values
+     *            the values of the placeholders, missing values are rendered as empty
+     *            string. An {@link EnumMap} is the fastest choice.
+     */
+    public String render(Map<Placeholder, String> values) {
+        StringBuilder out = new StringBuilder(literalLength + 1024);
+        render(values, out);
+        return out.toString();
+    }
+
+    /**
+     * Renders the template and appends it to the buffer
+     *
+     * @param values
+     *            the values of the placeholders, missing values are rendered as empty
+     *            string. An {@link EnumMap} is the fastest choice.
+     * @param out
+     *            the buffer, e.g. one that gets reused for rendering many classes
+     */
+    public void render(Map<Placeholder, String> values, StringBuilder out) {
+        out.append(literals[0]);
+        for (int i = 0; i < placeholders.length; i++) {
+            String value = values.get(placeholders[i]);
+            if (value != null) {
+                out.append(value);
+            }
+            out.append(literals[i + 1]);
+        }
+    }
+
+    /**
+     * @return the template as it was compiled
+     */
+    @Override
+    public String toString() {
+        return template;
+    }
+}
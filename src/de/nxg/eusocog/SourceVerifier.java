@@ -0,0 +1,115 @@
+package de.nxg.eusocog;
+
+import java.io.*;
+import java.net.*;
+import java.nio.charset.*;
+import java.nio.file.*;
+import java.util.*;
+
+import javax.tools.*;
+
+/**
+ * Compiles generated sources in-process with the {@link JavaCompiler} of the running JDK
+ * to check that they compile. All files are compiled together in one compiler run, the
+ * class files are discarded in memory. The classes of EuSoCoG and the class path of the
+ * JVM are on the class path of the compiler.
+ */
+final class SourceVerifier {
+
+    private SourceVerifier() {}
+
+    /**
+     * @return the errors per file (in order of the files) for every file that doesn't
+     *         compile, errors that don't belong to a file under the key null. Empty if
+     *         everything compiles.
+     * @throws IOException
+     *             if the running JVM has no compiler (e.g. a JRE)
+     */
+    static Map<Path, List<String>> verify(Collection<Path> sourceFiles) throws IOException {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        if (compiler == null) {
+            throw new IOException("No Java compiler available, a JDK is needed to verify the sources");
+        }
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        try (StandardJavaFileManager standardFileManager = compiler.getStandardFileManager(diagnostics,
+                Locale.ROOT, StandardCharsets.UTF_8)) {
+            standardFileManager.setLocation(StandardLocation.CLASS_PATH, getClassPath());
+            // only the given files get compiled, never other sources found on the way
+            standardFileManager.setLocation(StandardLocation.SOURCE_PATH, Collections.<File> emptyList());
+            List<File> files = new ArrayList<>();
+            for (Path sourceFile : sourceFiles) {
+                files.add(sourceFile.toFile());
+            }
+            JavaCompiler.CompilationTask task = compiler.getTask(null, new InMemoryFileManager(standardFileManager),
+                    diagnostics, Arrays.asList("-proc:none", "-implicit:none", "-nowarn", "-encoding", "UTF-8"),
+                    null, standardFileManager.getJavaFileObjectsFromFiles(files));
+            task.call();
+        }
+
+        Map<Path, Path> normalized = new HashMap<>();
+        for (Path sourceFile : sourceFiles) {
+            normalized.put(sourceFile.toAbsolutePath().normalize(), sourceFile);
+        }
+        Map<Path, List<String>> errors = new TreeMap<>(Comparator.nullsFirst(Comparator.<Path> naturalOrder()));
+        for (Diagnostic<? extends JavaFileObject> diagnostic : diagnostics.getDiagnostics()) {
+            if (diagnostic.getKind() != Diagnostic.Kind.ERROR) {
+                continue;
+            }
+            Path file = null;
+            if (diagnostic.getSource() != null) {
+                Path path = Paths.get(diagnostic.getSource().toUri()).toAbsolutePath().normalize();
+                file = normalized.getOrDefault(path, path);
+            }
+            String message = diagnostic.getMessage(Locale.ROOT);
+            errors.computeIfAbsent(file, k -> new ArrayList<>()).add(file == null ? message
+                    : file.getFileName() + ":" + diagnostic.getLineNumber() + ": " + message);
+        }
+        return errors;
+    }
+
+    private static List<File> getClassPath() {
+        Set<File> classPath = new LinkedHashSet<>();
+        try {
+            URL eusocog = EulerProblem.class.getProtectionDomain().getCodeSource().getLocation();
+            classPath.add(Paths.get(eusocog.toURI()).toFile());
+        } catch (URISyntaxException | RuntimeException e) {
+            // then it has to be on the class path of the JVM
+        }
+        for (String entry : System.getProperty("java.class.path", "").split(File.pathSeparator)) {
+            if (!entry.isEmpty()) {
+                classPath.add(new File(entry));
+            }
+        }
+        return new ArrayList<>(classPath);
+    }
+
+    // #########################################################################
+    // ############################ INNER CLASSES ##############################
+    // #########################################################################
+
+    /** Discards the class files instead of writing them */
+    private static final class InMemoryFileManager extends ForwardingJavaFileManager<JavaFileManager> {
+
+        InMemoryFileManager(JavaFileManager fileManager) {
+            super(fileManager);
+        }
+
+        @Override
+        public JavaFileObject getJavaFileForOutput(Location location, String className, JavaFileObject.Kind kind,
+                FileObject sibling) {
+            return new DiscardedClassFile(className, kind);
+        }
+    }
+
+    private static final class DiscardedClassFile extends SimpleJavaFileObject {
+
+        DiscardedClassFile(String className, Kind kind) {
+            super(URI.create("mem:///" + className.replace('.', '/') + kind.extension), kind);
+        }
+
+        @Override
+        public OutputStream openOutputStream() {
+            return OutputStream.nullOutputStream();
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package de.nxg.eusocog;
+
+import java.io.*;
+import java.nio.charset.*;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Write stage of the {@link EulerSourceGenerator}.
+ * <p>
+ * Files are written UTF-8 encoded through a temporary file that is atomically moved into
+ * place, that way a crash never leaves a half written class behind. Every directory is
+ * listed and created at most once, files whose content is byte-identical aren't written
+ * at all. A SourceWriter is meant to be used for one generator run, changes made by
+ * others in the meantime aren't noticed.
+ * <p>
+ * Writes aren't grouped per directory: the generator writes every class as soon as its
+ * page is processed and records it in the manifest right after, holding the classes
+ * back until a directory is complete would keep them in memory and lose the progress of
+ * an interrupted run. The per directory work (listing and creating it) is grouped
+ * through the cached listing, what's left per file (temporary file and move) can't be
+ * batched anyway.
+ */
+final class SourceWriter {
+
+    /** What {@link SourceWriter#write(Path, String)} did */
+    enum Outcome {
+        CREATED, UPDATED, UNCHANGED
+    }
+
+    private final ConcurrentMap<Path, Directory> directories = new ConcurrentHashMap<>();
+
+    /**
+     * @return if the file exists, answered from the (once read) listing of its directory
+     */
+    boolean exists(Path file) throws IOException {
+        return getDirectory(file.getParent()).fileNames.contains(file.getFileName().toString());
+    }
+
+    /**
+     * Writes the content UTF-8 encoded into the file, if the file doesn't allready
+     * contain exactly that content
+     */
+    Outcome write(Path file, String content) throws IOException {
+        Path folder = file.getParent();
+        String fileName = file.getFileName().toString();
+        byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+
+        Directory directory = getDirectory(folder);
+        boolean exists = directory.fileNames.contains(fileName);
+        if (exists && Files.size(file) == bytes.length && Arrays.equals(Files.readAllBytes(file), bytes)) {
+            return Outcome.UNCHANGED;
+        }
+        if (!directory.created) {
+            synchronized (directory) {
+                if (!directory.created) {
+                    Files.createDirectories(folder);
+                    directory.created = true;
+                }
+            }
+        }
+        writeAtomically(file, bytes);
+        directory.fileNames.add(fileName);
+        return exists ? Outcome.UPDATED : Outcome.CREATED;
+    }
+
+    /**
+     * Writes the bytes into a temporary file next to the file and moves it into place
+     * atomically (if the file system supports it). The parent directory has to exist.
+     */
+    static void writeAtomically(Path file, byte[] bytes) throws IOException {
+        // not Files.createTempFile, it would create the file only readable by the owner
+        Path tempFile = file.resolveSibling("." + file.getFileName() + "."
+                + Long.toHexString(ThreadLocalRandom.current().nextLong()) + ".tmp");
+        try {
+            Files.write(tempFile, bytes, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+            try {
+                Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+
+    private Directory getDirectory(Path folder) throws IOException {
+        Directory directory = directories.get(folder);
+        if (directory == null) {
+            directory = new Directory();
+            if (Files.isDirectory(folder)) {
+                directory.created = true;
+                try (DirectoryStream<Path> stream = Files.newDirectoryStream(folder)) {
+                    for (Path file : stream) {
+                        directory.fileNames.add(file.getFileName().toString());
+                    }
+                }
+            }
+            Directory previous = directories.putIfAbsent(folder, directory);
+            if (previous != null) {
+                directory = previous;
+            }
+        }
+        return directory;
+    }
+
+    // #########################################################################
+    // ############################ INNER CLASSES ##############################
+    // #########################################################################
+
+    private static final class Directory {
+
+        private final Set<String> fileNames = ConcurrentHashMap.newKeySet();
+        private volatile boolean created;
+
+    }
+}
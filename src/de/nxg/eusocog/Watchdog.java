@@ -0,0 +1,69 @@
+package de.nxg.eusocog;
+
+import java.time.*;
+import java.util.concurrent.*;
+
+/**
+ * Enforces the time budget of a solving problem: when the budget is exceeded the problem
+ * gets cancelled (see {@link EulerProblem#checkCancelled()}) and the solving thread
+ * interrupted.
+ */
+final class Watchdog implements Runnable {
+
+    private static final ScheduledExecutorService SCHEDULER = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "eusocog-watchdog");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private final EulerProblem problem;
+    private final Thread thread;
+    private ScheduledFuture<?> future;
+    private boolean finished;
+    private boolean fired;
+
+    private Watchdog(EulerProblem problem, Thread thread) {
+        this.problem = problem;
+        this.thread = thread;
+    }
+
+    /**
+     * Starts watching the problem solved by the current thread
+     *
+     * @return stop it when the problem is solved, null if there is no budget
+     */
+    static Watchdog start(EulerProblem problem, Duration budget) {
+        if (budget == null || budget.isZero() || budget.isNegative()) {
+            return null;
+        }
+        Watchdog watchdog = new Watchdog(problem, Thread.currentThread());
+        synchronized (watchdog) {
+            watchdog.future = SCHEDULER.schedule(watchdog, budget.toNanos(), TimeUnit.NANOSECONDS);
+        }
+        return watchdog;
+    }
+
+    @Override
+    public synchronized void run() {
+        if (!finished) {
+            fired = true;
+            problem.cancel();
+            thread.interrupt();
+        }
+    }
+
+    /**
+     * Has to be called by the solving thread, clears the interrupt the watchdog may have
+     * caused
+     *
+     * @return if the budget was exceeded
+     */
+    synchronized boolean stop() {
+        finished = true;
+        future.cancel(false);
+        if (fired) {
+            Thread.interrupted();
+        }
+        return fired;
+    }
+}
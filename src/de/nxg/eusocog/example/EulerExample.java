@@ -27,10 +27,28 @@ public class EulerExample {
                 generatePackageStructure,
                 subPackagePrefix);
 
+        // Optional: keep the downloaded webpages in a local cache, unchanged webpages are
+        // then answered with "304 Not Modified" instead of being downloaded again
+//        generator.setPageSource(new CachingPageSource(sourceDestinationFolder.resolve(".eusocog-cache")));
+
+        // Optional: compile the generated classes at the end of every run and report the
+        // problems that don't compile (needs a JDK)
+//        generator.setVerifySources(true);
+
+        // Optional: link the images and data files on the website instead of mirroring
+        // them into the "resources" folder
+//        generator.setMirrorResources(false);
+
+        // Optional: the floor and ceiling of the pages requested at the same time, in
+        // between the amount adapts to the response times and throttling of the server
+//        generator.setConcurrencyLimits(1, 50);
+
         boolean overwriteExisting = true;
 
         generator.generate(167, overwriteExisting);
 //        generator.generateAll();
+        // Generate from a local directory, zip or bundle file with the webpages instead of downloading them
+//        generator.generateFromArchive(Paths.get("problems.zip"), overwriteExisting);
 
         if (Desktop.isDesktopSupported()) {
             try {
@@ -0,0 +1,139 @@
+package de.nxg.eusocog;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.*;
+import java.nio.file.*;
+
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.*;
+
+class CachingPageSourceTest {
+
+    private static final String LAST_MODIFIED = "Wed, 01 May 2024 12:00:00 GMT";
+
+    @TempDir
+    Path cacheFolder;
+
+    private StubServer server;
+    /** the content of every problem, changing it changes the ETag */
+    private volatile String content = "<h2>Problem</h2>";
+    private volatile boolean sendEtag = true;
+    private volatile int errorCode;
+
+    @BeforeEach
+    void startServer() throws IOException {
+        server = new StubServer(exchange -> {
+            if (errorCode != 0) {
+                StubServer.respond(exchange, errorCode, "error");
+                return;
+            }
+            String etag = "\"" + Hashes.sha256(content) + "\"";
+            String ifNoneMatch = exchange.getRequestHeaders().getFirst("If-None-Match");
+            String ifModifiedSince = exchange.getRequestHeaders().getFirst("If-Modified-Since");
+            boolean notModified = sendEtag ? etag.equals(ifNoneMatch) : LAST_MODIFIED.equals(ifModifiedSince);
+            String[] headers = sendEtag ? new String[] { "ETag", etag } : new String[] { "Last-Modified", LAST_MODIFIED };
+            if (notModified) {
+                StubServer.respond(exchange, 304, null, headers);
+            } else {
+                StubServer.respond(exchange, 200, content + StubServer.getProblemNo(exchange), headers);
+            }
+        });
+    }
+
+    @AfterEach
+    void stopServer() {
+        server.close();
+    }
+
+    @Test
+    void revalidateSendsTheETagAndReadsUnchangedPagesFromDisk() throws IOException {
+        PageSource source = newSource(CachingPageSource.Mode.REVALIDATE);
+        ProblemPage downloaded = source.getPage(1);
+        assertEquals(ProblemPage.Origin.NETWORK, downloaded.origin);
+        assertNull(server.getLastRequest().getFirst("If-None-Match"));
+
+        ProblemPage revalidated = source.getPage(1);
+        assertEquals(ProblemPage.Origin.NOT_MODIFIED, revalidated.origin);
+        assertEquals(downloaded.content, revalidated.content);
+        assertNotNull(server.getLastRequest().getFirst("If-None-Match"));
+        assertEquals(2, server.getRequestCount());
+    }
+
+    @Test
+    void revalidateDownloadsChangedPages() throws IOException {
+        PageSource source = newSource(CachingPageSource.Mode.REVALIDATE);
+        source.getPage(1);
+        content = "<h2>Changed problem</h2>";
+
+        ProblemPage changed = source.getPage(1);
+        assertEquals(ProblemPage.Origin.NETWORK, changed.origin);
+        assertEquals("<h2>Changed problem</h2>1", changed.content);
+        assertEquals(ProblemPage.Origin.NOT_MODIFIED, source.getPage(1).origin);
+    }
+
+    @Test
+    void revalidateSendsLastModifiedWithoutETag() throws IOException {
+        sendEtag = false;
+        PageSource source = newSource(CachingPageSource.Mode.REVALIDATE);
+        source.getPage(1);
+
+        assertEquals(ProblemPage.Origin.NOT_MODIFIED, source.getPage(1).origin);
+        assertEquals(LAST_MODIFIED, server.getLastRequest().getFirst("If-Modified-Since"));
+        assertNull(server.getLastRequest().getFirst("If-None-Match"));
+    }
+
+    @Test
+    void revalidateFallsBackToTheCacheOnErrors() throws IOException {
+        PageSource source = newSource(CachingPageSource.Mode.REVALIDATE);
+        String cached = source.getPage(1).content;
+        errorCode = 404;
+
+        ProblemPage page = source.getPage(1);
+        assertEquals(ProblemPage.Origin.CACHE, page.origin);
+        assertEquals(cached, page.content);
+        assertThrows(IOException.class, () -> source.getPage(2));
+    }
+
+    @Test
+    void preferCacheOnlyDownloadsMissingPages() throws IOException {
+        PageSource source = newSource(CachingPageSource.Mode.PREFER_CACHE);
+        assertEquals(ProblemPage.Origin.NETWORK, source.getPage(1).origin);
+        content = "<h2>Changed problem</h2>";
+
+        ProblemPage page = source.getPage(1);
+        assertEquals(ProblemPage.Origin.CACHE, page.origin);
+        assertEquals("<h2>Problem</h2>1", page.content);
+        assertEquals(1, server.getRequestCount());
+    }
+
+    @Test
+    void problemsThatDontExistYetArentCached() throws IOException {
+        PageSource source = newSource(CachingPageSource.Mode.PREFER_CACHE);
+        content = "<div id=\"problems_table_page\"></div>";
+        assertEquals(ProblemPage.Origin.NETWORK, source.getPage(1).origin);
+        content = "<h2>New problem</h2>";
+
+        ProblemPage page = source.getPage(1);
+        assertEquals(ProblemPage.Origin.NETWORK, page.origin);
+        assertEquals("<h2>New problem</h2>1", page.content);
+        assertEquals(ProblemPage.Origin.CACHE, source.getPage(1).origin);
+        assertEquals(2, server.getRequestCount());
+    }
+
+    @Test
+    void offlineNeverContactsTheServer() throws IOException {
+        newSource(CachingPageSource.Mode.REVALIDATE).getPage(1);
+        PageSource source = newSource(CachingPageSource.Mode.OFFLINE);
+
+        assertEquals(ProblemPage.Origin.CACHE, source.getPage(1).origin);
+        ProblemPage missing = source.getPage(2);
+        assertEquals(ProblemPage.Origin.UNAVAILABLE, missing.origin);
+        assertEquals("", missing.content);
+        assertEquals(1, server.getRequestCount());
+    }
+
+    private PageSource newSource(CachingPageSource.Mode mode) {
+        return new CachingPageSource(cacheFolder, new HttpPageSource(server.getUrlPrefix()), mode);
+    }
+}
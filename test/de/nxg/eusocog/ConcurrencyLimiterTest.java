@@ -0,0 +1,162 @@
+package de.nxg.eusocog;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.*;
+import java.nio.charset.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+import org.junit.jupiter.api.*;
+
+class ConcurrencyLimiterTest {
+
+    /**
+     * milliseconds a slow response of the stand-in server takes, the assertions leave
+     * half of it for pauses of the JVM or the scheduler
+     */
+    private static final long SLOW = 1_000;
+
+    @Test
+    void slowStartGrowsByOnePerResponse() {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(1, 1, 100);
+        for (int i = 0; i < 4; i++) {
+            limiter.onSuccess(millis(0), millis(10));
+        }
+        assertEquals(5, limiter.getLimit());
+        assertEquals(5, limiter.getPeakLimit());
+    }
+
+    @Test
+    void throttlingHalvesTheLimitAndEndsSlowStart() {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(1, 16, 100);
+        limiter.onThrottled(millis(0), millis(10));
+        assertEquals(8, limiter.getLimit());
+
+        // one round of responses grows the limit by one only
+        for (int i = 0; i < 10; i++) {
+            limiter.onSuccess(millis(20), millis(30));
+        }
+        assertEquals(9, limiter.getLimit());
+        assertEquals(16, limiter.getPeakLimit());
+    }
+
+    @Test
+    void requestsSentBeforeTheLastDecreaseDontDecreaseAgain() {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(1, 16, 100);
+        limiter.onThrottled(millis(0), millis(10));
+        limiter.onThrottled(millis(5), millis(12));
+        limiter.onThrottled(millis(9), millis(20));
+        assertEquals(8, limiter.getLimit());
+
+        limiter.onThrottled(millis(15), millis(25));
+        assertEquals(4, limiter.getLimit());
+        assertTrue(limiter.toString().contains("throttled 2 times"), limiter.toString());
+    }
+
+    @Test
+    void slowResponsesShrinkTheLimitByTenPercent() {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(1, 10, 100);
+        limiter.onSuccess(millis(0), millis(10));
+        assertEquals(11, limiter.getLimit());
+
+        limiter.onSuccess(millis(20), millis(50));
+        assertEquals(9, limiter.getLimit());
+        // sent before that decrease
+        limiter.onSuccess(millis(30), millis(60));
+        assertEquals(9, limiter.getLimit());
+        assertTrue(limiter.toString().contains("1 slow responses"), limiter.toString());
+    }
+
+    @Test
+    void theLimitStaysBetweenFloorAndCeiling() {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(2, 2, 3);
+        for (int i = 0; i < 5; i++) {
+            limiter.onSuccess(millis(0), millis(10));
+        }
+        assertEquals(3, limiter.getLimit());
+        for (int i = 0; i < 5; i++) {
+            limiter.onThrottled(millis(20 + i * 20), millis(30 + i * 20));
+        }
+        assertEquals(2, limiter.getLimit());
+    }
+
+    @Test
+    void throttledResponsesOfTheServerHalveTheLimit() throws IOException {
+        List<Integer> statusCodes = new CopyOnWriteArrayList<>(Arrays.asList(429, 503));
+        try (StubServer server = new StubServer(exchange -> {
+            int statusCode = statusCodes.isEmpty() ? 200 : statusCodes.remove(0);
+            StubServer.respond(exchange, statusCode, "<h2>Problem</h2>");
+        })) {
+            ConcurrencyLimiter limiter = new ConcurrencyLimiter(1, 16, 100);
+            HttpPageSource source = new HttpPageSource(server.getUrlPrefix());
+            source.setConcurrencyLimiter(limiter);
+
+            // the retry after the 429 is sent after the decrease and counts again
+            assertEquals("<h2>Problem</h2>", source.getPage(1).content);
+            assertEquals(3, server.getRequestCount());
+            assertEquals(4, limiter.getLimit());
+            assertTrue(limiter.toString().contains("throttled 2 times"), limiter.toString());
+        }
+    }
+
+    @Test
+    void downloadingABigPageIsntServerLoad() throws IOException {
+        try (StubServer server = new StubServer(exchange -> {
+            // the headers are sent right away, the body takes a second
+            byte[] chunk = "<p>Problem</p>".getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, chunk.length * 5L);
+            try (OutputStream out = exchange.getResponseBody()) {
+                for (int i = 0; i < 5; i++) {
+                    out.write(chunk);
+                    out.flush();
+                    sleep(SLOW / 5);
+                }
+            }
+        })) {
+            ConcurrencyLimiter limiter = new ConcurrencyLimiter(1, 4, 100);
+            HttpPageSource source = new HttpPageSource(server.getUrlPrefix());
+            source.setConcurrencyLimiter(limiter);
+
+            source.getPage(1);
+            source.getPage(2);
+            // measured until the headers arrived, far below the download time
+            assertTrue(limiter.getBaselineNanos() < millis(SLOW / 2), limiter.getBaselineNanos() + " ns");
+        }
+    }
+
+    @Test
+    void queueingOnTheServerShrinksTheLimit() throws IOException {
+        try (StubServer server = new StubServer(exchange -> {
+            // problem 2 waits in the queue of the server before it gets answered
+            if (StubServer.getProblemNo(exchange) == 2) {
+                sleep(SLOW);
+            }
+            StubServer.respond(exchange, 200, "<h2>Problem</h2>");
+        })) {
+            // 10% of a limit that high is more than the fraction a delayed response to
+            // problem 1 could have taken off already
+            ConcurrencyLimiter limiter = new ConcurrencyLimiter(1, 40, 100);
+            HttpPageSource source = new HttpPageSource(server.getUrlPrefix());
+            source.setConcurrencyLimiter(limiter);
+
+            source.getPage(1);
+            source.getPage(1);
+            int limit = limiter.getLimit();
+            source.getPage(2);
+            assertTrue(limiter.getLimit() < limit, limiter.toString());
+        }
+    }
+
+    private static long millis(long millis) {
+        return TimeUnit.MILLISECONDS.toNanos(millis);
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
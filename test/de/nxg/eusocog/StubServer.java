@@ -0,0 +1,82 @@
+package de.nxg.eusocog;
+
+import java.io.*;
+import java.net.*;
+import java.nio.charset.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+import com.sun.net.httpserver.*;
+
+/**
+ * Local stand-in for projecteuler.net, answers every request with the handler and
+ * records the request headers
+ */
+final class StubServer implements AutoCloseable {
+
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final List<Headers> requests = new CopyOnWriteArrayList<>();
+
+    StubServer(HttpHandler handler) throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/", exchange -> {
+            requests.add(exchange.getRequestHeaders());
+            try {
+                handler.handle(exchange);
+            } finally {
+                exchange.close();
+            }
+        });
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    /**
+     * @return the url prefix for a {@link HttpPageSource}
+     */
+    String getUrlPrefix() {
+        return "http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort() + "/problem=";
+    }
+
+    int getRequestCount() {
+        return requests.size();
+    }
+
+    Headers getLastRequest() {
+        return requests.get(requests.size() - 1);
+    }
+
+    /**
+     * @return the problemNo of a request for a problem
+     */
+    static int getProblemNo(HttpExchange exchange) {
+        String query = exchange.getRequestURI().toString();
+        return Integer.parseInt(query.substring(query.indexOf('=') + 1));
+    }
+
+    /**
+     * Sends the response, the headers are given as name, value pairs
+     */
+    static void respond(HttpExchange exchange, int statusCode, String body, String... headers) throws IOException {
+        for (int i = 0; i < headers.length; i += 2) {
+            exchange.getResponseHeaders().add(headers[i], headers[i + 1]);
+        }
+        if (body == null) {
+            exchange.sendResponseHeaders(statusCode, -1);
+            return;
+        }
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "text/html; charset=UTF-8");
+        exchange.sendResponseHeaders(statusCode, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+}